@@ -40,6 +40,7 @@ application {
 // ========================================
 
 extra["fasterxml_jackson"] = "2.10.3"
+extra["hdrhistogram"]      = "2.1.12"
 extra["junit"]             = "5.6.1"
 
 dependencies {
@@ -50,6 +51,7 @@ dependencies {
     annotationProcessor("org.projectlombok:lombok")
     implementation("com.fasterxml.jackson.core:jackson-databind:${project.extra["fasterxml_jackson"]}")
     implementation("com.fasterxml.jackson.module:jackson-module-afterburner:${project.extra["fasterxml_jackson"]}")
+    implementation("org.hdrhistogram:HdrHistogram:${project.extra["hdrhistogram"]}")
 }
 
 // Repositories
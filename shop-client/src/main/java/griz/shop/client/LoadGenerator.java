@@ -0,0 +1,132 @@
+package griz.shop.client;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Replays a scenario of requests from concurrent virtual users and reports the results with a {@link LoadReport}.
+ *
+ * <p>Each virtual user runs on its own thread with its own {@link HttpClient} and {@link CookieManager}, so every user
+ * holds its own connection and session. Users take the sessions of the {@link Scenario} in turn until none are left,
+ * and clear the cookies before every session, which starts a new session and therefore an empty cart. Between
+ * requests, a user pauses for a think time drawn uniformly from 50% to 150% of the configured value. Users are started
+ * evenly over the ramp-up period.
+ *
+ * <p>Users are closed-loop: a user does not send its next request before the previous one completes, so the offered
+ * load drops when the server slows down. Increase the number of users, rather than reducing the think time, to find
+ * the throughput at which latency degrades.
+ *
+ * @author nichollsmc
+ */
+public class LoadGenerator {
+
+    private final LoadOptions                  options;
+    private final Supplier<HttpClient.Builder> httpClientBuilder;
+    private final LoadReport                   report;
+
+    public LoadGenerator(final LoadOptions options, final Supplier<HttpClient.Builder> httpClientBuilder) {
+        this.options           = options;
+        this.httpClientBuilder = httpClientBuilder;
+        this.report            = new LoadReport();
+    }
+
+    /**
+     * Runs the sessions of the scenario from every virtual user and waits for all users to complete.
+     *
+     * @param scenario the {@link Scenario} of the sessions sent by the users
+     * @return the summary of the {@link LoadReport}
+     * @throws InterruptedException if interrupted while waiting for the users
+     */
+    public String run(final Scenario scenario) throws InterruptedException {
+        final var users          = Executors.newFixedThreadPool(options.getUsers());
+        final var clientExecutor = Executors.newCachedThreadPool();
+        final var started        = System.nanoTime();
+
+        try {
+            final var futures = new ArrayList<Future<?>>(options.getUsers());
+
+            for (int user = 0; user < options.getUsers(); user++) {
+                final var startDelay = options.getRampUp().multipliedBy(user).dividedBy(options.getUsers());
+
+                futures.add(users.submit(() -> runUser(scenario, startDelay, clientExecutor)));
+            }
+
+            for (final var future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+        } finally {
+            users.shutdownNow();
+            clientExecutor.shutdownNow();
+        }
+
+        return report.summary(options, Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private Void runUser(final Scenario scenario,
+                         final Duration startDelay,
+                         final ExecutorService clientExecutor) throws InterruptedException {
+        final var cookieManager = new CookieManager();
+        final var client        = httpClientBuilder.get()
+                                      .cookieHandler(cookieManager)
+                                      .executor(clientExecutor)
+                                      .build();
+
+        Thread.sleep(startDelay.toMillis());
+
+        for (var session = scenario.nextSession(); session.isPresent(); session = scenario.nextSession()) {
+            cookieManager.getCookieStore().removeAll();
+
+            try (var requests = session.get()) {
+                final var iterator = requests.iterator();
+
+                for (var first = true; iterator.hasNext(); first = false) {
+                    if (!first) {
+                        think();
+                    }
+
+                    final var httpRequest = iterator.next();
+
+                    send(client, httpRequest, LoadReport.endpointOf(httpRequest));
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private void send(final HttpClient client, final HttpRequest httpRequest, final String endpoint)
+        throws InterruptedException {
+        final var start = System.nanoTime();
+
+        try {
+            final var response = client.send(httpRequest, BodyHandlers.discarding());
+
+            report.record(endpoint, System.nanoTime() - start, response.statusCode());
+        } catch (IOException e) {
+            report.record(endpoint, System.nanoTime() - start, 0);
+        }
+    }
+
+    private void think() throws InterruptedException {
+        final var thinkTime = options.getThinkTime().toMillis();
+
+        if (thinkTime > 0) {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(thinkTime / 2, thinkTime + thinkTime / 2 + 1));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package griz.shop.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Options for the load mode of the client, parsed from {@code --name=value} command-line arguments.
+ *
+ * <p>The load mode is enabled by {@value #OPTION_USERS} or {@value #OPTION_WORKLOAD}; all other options have
+ * defaults. A positive {@value #OPTION_IN_FLIGHT} replays the requests asynchronously with that many requests in
+ * flight, instead of from closed-loop virtual users. A {@value #OPTION_WORKLOAD} file generates the sessions from a
+ * {@link Workload}, instead of repeating the requests for the number of iterations. A {@value #OPTION_REQUESTS} file
+ * replaces the bundled {@code requests.json}.
+ *
+ * @author nichollsmc
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadOptions {
+
+    static final String OPTION_USERS      = "--users";
+    static final String OPTION_ITERATIONS = "--iterations";
+    static final String OPTION_THINK_TIME = "--think-time";
+    static final String OPTION_RAMP_UP    = "--ramp-up";
+    static final String OPTION_IN_FLIGHT  = "--in-flight";
+    static final String OPTION_WORKLOAD   = "--workload";
+    static final String OPTION_REQUESTS   = "--requests";
+
+    @Builder.Default
+    private int      users      = 1;
+    @Builder.Default
+    private int      iterations = 10;
+    @Builder.Default
+    private Duration thinkTime  = Duration.ofMillis(500);
+    @Builder.Default
+    private Duration rampUp     = Duration.ZERO;
+    @Builder.Default
+    private int      inFlight   = 0;
+    private Path     workload;
+    private Path     requests;
+
+    /**
+     * Parses the {@code LoadOptions} from the provided command-line arguments.
+     *
+     * <p>Durations are given in milliseconds. For example: {@code --users=50 --iterations=20 --think-time=250}.
+     *
+     * @param args the command-line arguments
+     * @return an {@link Optional} for the {@code LoadOptions}, or an empty {@code Optional} if the load mode was not
+     *         requested
+     */
+    public static Optional<LoadOptions> fromArgs(final String... args) {
+        if (Arrays.stream(args).noneMatch(arg -> arg.startsWith(OPTION_USERS + "=")
+                                                 || arg.startsWith(OPTION_WORKLOAD + "="))) {
+            return Optional.empty();
+        }
+
+        final var options = LoadOptions.builder().build();
+
+        for (final var arg : args) {
+            final var separator = arg.indexOf('=');
+
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected an option of the form --name=value: " + arg);
+            }
+
+            final var name  = arg.substring(0, separator);
+            final var value = arg.substring(separator + 1);
+
+            switch (name) {
+                case OPTION_USERS:
+                    options.setUsers(Integer.parseInt(value));
+                    break;
+                case OPTION_ITERATIONS:
+                    options.setIterations(Integer.parseInt(value));
+                    break;
+                case OPTION_THINK_TIME:
+                    options.setThinkTime(Duration.ofMillis(Long.parseLong(value)));
+                    break;
+                case OPTION_RAMP_UP:
+                    options.setRampUp(Duration.ofMillis(Long.parseLong(value)));
+                    break;
+                case OPTION_IN_FLIGHT:
+                    options.setInFlight(Integer.parseInt(value));
+                    break;
+                case OPTION_WORKLOAD:
+                    options.setWorkload(Path.of(value));
+                    break;
+                case OPTION_REQUESTS:
+                    options.setRequests(Path.of(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+
+        if (options.getUsers() < 1 || options.getIterations() < 1) {
+            throw new IllegalArgumentException("The number of users and iterations must be positive");
+        }
+
+        if (options.getInFlight() < 0) {
+            throw new IllegalArgumentException("The number of requests in flight must not be negative");
+        }
+
+        return Optional.of(options);
+    }
+
+    /**
+     * Returns the request file given by the {@value #OPTION_REQUESTS} option, which also applies outside the load
+     * mode.
+     *
+     * @param args the command-line arguments
+     * @return an {@link Optional} for the path of the request file, or an empty {@code Optional} for the bundled
+     *         {@code requests.json}
+     */
+    public static Optional<Path> requestsOf(final String... args) {
+        return Arrays.stream(args)
+                .filter(arg -> arg.startsWith(OPTION_REQUESTS + "="))
+                .map(arg -> Path.of(arg.substring(OPTION_REQUESTS.length() + 1)))
+                .reduce((first, last) -> last);
+    }
+
+    /**
+     * Returns whether the requests are replayed by the {@link PipelinedReplay}, with a window of
+     * {@value #OPTION_IN_FLIGHT} requests in flight, rather than by closed-loop virtual users.
+     *
+     * @return {@code true} if the replay is pipelined
+     */
+    public boolean isPipelined() {
+        return inFlight > 0;
+    }
+}
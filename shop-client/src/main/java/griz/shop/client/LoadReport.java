@@ -0,0 +1,149 @@
+package griz.shop.client;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+
+/**
+ * Per-endpoint latency and throughput of a load run, recorded with HdrHistogram.
+ *
+ * <p>Endpoints are identified by the method and the path template of the request, e.g. {@code POST /cart/{name}}, so
+ * that requests for different items are reported together. Latencies are recorded in microseconds from concurrent
+ * virtual users and reported in milliseconds.
+ *
+ * @author nichollsmc
+ */
+public class LoadReport {
+
+    private static final Pattern ITEM_PATH          = Pattern.compile("^/cart/(?!receipt$)[^/]+$");
+    private static final long    HIGHEST_LATENCY    = TimeUnit.MINUTES.toMicros(5);
+    private static final int     SIGNIFICANT_DIGITS = 3;
+    private static final double  MICROS_PER_MILLI   = 1000.0;
+    private static final String  SEPARATOR          = "-".repeat(118);
+
+    private final Map<String, EndpointRecorder> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the endpoint of the provided {@link HttpRequest}, used for grouping its statistics.
+     *
+     * @param httpRequest the {@code HttpRequest}
+     * @return the method and path template of the request
+     */
+    public static String endpointOf(final HttpRequest httpRequest) {
+        final var path = httpRequest.uri().getPath();
+
+        return httpRequest.method() + " " + (ITEM_PATH.matcher(path).matches() ? "/cart/{name}" : path);
+    }
+
+    /**
+     * Records the outcome of a request.
+     *
+     * @param endpoint the endpoint of the request
+     * @param latencyNanos the time from sending the request until the response body was received
+     * @param statusCode the status code of the response, or {@code 0} if the request failed
+     */
+    public void record(final String endpoint, final long latencyNanos, final int statusCode) {
+        final var recorder = endpoints.computeIfAbsent(endpoint, e -> new EndpointRecorder());
+
+        recorder.latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY));
+
+        if (statusCode == 0 || statusCode >= 500) {
+            recorder.errors.increment();
+        } else if (statusCode >= 400) {
+            recorder.clientErrors.increment();
+        }
+    }
+
+    /**
+     * Formats the statistics of every endpoint, and of all endpoints combined.
+     *
+     * @param options the {@link LoadOptions} of the run
+     * @param elapsed the wall-clock duration of the run
+     * @return the report
+     */
+    public String summary(final LoadOptions options, final Duration elapsed) {
+        final var seconds = Math.max(elapsed.toNanos(), 1) / (double) TimeUnit.SECONDS.toNanos(1);
+        final var total   = new Histogram(HIGHEST_LATENCY, SIGNIFICANT_DIGITS);
+        final var builder = new StringBuilder();
+
+        var totalClientErrors = 0L;
+        var totalErrors       = 0L;
+
+        builder
+            .append("\n")
+            .append("LOAD").append("\n")
+            .append(options.isPipelined()
+                        ? format("Sessions: %d  %s  In flight: %d  Elapsed: %.1fs",
+                                 options.getUsers(),
+                                 sourceOf(options),
+                                 options.getInFlight(),
+                                 seconds)
+                        : format("Users: %d  %s  Think time: %dms  Ramp-up: %dms  Elapsed: %.1fs",
+                                 options.getUsers(),
+                                 sourceOf(options),
+                                 options.getThinkTime().toMillis(),
+                                 options.getRampUp().toMillis(),
+                                 seconds)).append("\n")
+            .append(SEPARATOR).append("\n")
+            .append(format("%-24s%10s%8s%8s%12s%10s%10s%10s%10s%10s%n",
+                           "Endpoint", "Requests", "4xx", "Errors", "Req/s",
+                           "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms"));
+
+        for (final var entry : new TreeMap<>(endpoints).entrySet()) {
+            final var recorder  = entry.getValue();
+            final var histogram = recorder.latencies.getIntervalHistogram();
+
+            total.add(histogram);
+            totalClientErrors += recorder.clientErrors.sum();
+            totalErrors       += recorder.errors.sum();
+
+            appendRow(builder, entry.getKey(), histogram, recorder.clientErrors.sum(), recorder.errors.sum(), seconds);
+        }
+
+        builder.append(SEPARATOR).append("\n");
+        appendRow(builder, "Total", total, totalClientErrors, totalErrors, seconds);
+
+        return builder.toString();
+    }
+
+    private static String sourceOf(final LoadOptions options) {
+        return options.getWorkload() == null
+            ? format("Iterations: %d", options.getIterations())
+            : format("Workload: %s", options.getWorkload().getFileName());
+    }
+
+    private static void appendRow(final StringBuilder builder,
+                                  final String endpoint,
+                                  final Histogram histogram,
+                                  final long clientErrors,
+                                  final long errors,
+                                  final double seconds) {
+        builder.append(format("%-24s%10d%8d%8d%12.1f%10.2f%10.2f%10.2f%10.2f%10.2f%n",
+                              endpoint,
+                              histogram.getTotalCount(),
+                              clientErrors,
+                              errors,
+                              histogram.getTotalCount() / seconds,
+                              histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                              histogram.getValueAtPercentile(90) / MICROS_PER_MILLI,
+                              histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                              histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                              histogram.getMaxValue() / MICROS_PER_MILLI));
+    }
+
+    private static final class EndpointRecorder {
+        private final Recorder  latencies    = new Recorder(HIGHEST_LATENCY, SIGNIFICANT_DIGITS);
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder errors       = new LongAdder();
+    }
+}
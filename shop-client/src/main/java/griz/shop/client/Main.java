@@ -5,7 +5,6 @@ import static java.net.http.HttpRequest.BodyPublishers;
 import static java.net.http.HttpResponse.BodyHandlers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
@@ -14,6 +13,8 @@ import java.net.CookieManager;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.NumberFormat;
@@ -39,7 +40,7 @@ import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS
 public class Main {
 
     private static final String       REQUESTS_JSON = "requests.json";
-    private static final ObjectMapper OBJECT_MAPPER;
+    static final ObjectMapper         OBJECT_MAPPER;
 
     static {
         OBJECT_MAPPER = new ObjectMapper()
@@ -50,12 +51,14 @@ public class Main {
             .configure(WRITE_DATES_AS_TIMESTAMPS, false);
     }
 
-    private void run() throws IOException {
-        final var client = createHttpClient();
+    private void run(final Optional<Path> requestsFile) throws IOException {
+        final var client = httpClientBuilder().cookieHandler(new CookieManager()).build();
 
-        readRequests()
-            .map(toHttpRequest().andThen(sendRequestWith(client)))
-            .forEach(r -> {});
+        try (var requests = readRequests(requestsFile)) {
+            requests
+                .map(toHttpRequest().andThen(sendRequestWith(client)))
+                .forEach(r -> {});
+        }
 
         toHttpRequest()
             .andThen(sendRequestWith(client))
@@ -70,25 +73,64 @@ public class Main {
                 return receipt;
             })
             .andThen(printReceipt())
-            .apply(Request.builder()
-                    .endpoint("http://localhost:8080/cart/receipt")
-                    .method("GET")
-                    .build());
+            .apply(receiptRequest());
+    }
+
+    private void runLoad(final LoadOptions options) throws IOException, InterruptedException {
+        final var scenario = options.getWorkload() == null ? repeatRequests(options) : generateRequests(options);
+
+        System.out.println(options.isPipelined()
+                               ? new PipelinedReplay(options, this::httpClientBuilder).run(scenario)
+                               : new LoadGenerator(options, this::httpClientBuilder).run(scenario));
+    }
+
+    /*
+     * The request file is read anew by every session rather than held in memory, and is opened once up front so that a
+     * file that cannot be read fails the run before any user starts.
+     */
+    private Scenario repeatRequests(final LoadOptions options) throws IOException {
+        final var requestsFile = Optional.ofNullable(options.getRequests());
+
+        readRequests(requestsFile).close();
+
+        return Scenario.repeat(() -> {
+            try {
+                return Stream.concat(readRequests(requestsFile), Stream.of(receiptRequest())).map(toHttpRequest());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, (long) options.getUsers() * options.getIterations());
     }
 
-    private Stream<Request> readRequests() throws IOException {
-        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(REQUESTS_JSON)) {
-            return OBJECT_MAPPER.readValue(inputStream, new TypeReference<List<Request>>(){}).stream();
+    private Scenario generateRequests(final LoadOptions options) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(options.getWorkload())) {
+            final var workload = OBJECT_MAPPER.readValue(inputStream, Workload.class);
+
+            return Scenario.generate(new WorkloadGenerator(workload), toHttpRequest());
         }
     }
 
-    private HttpClient createHttpClient() {
+    private Request receiptRequest() {
+        return Request.builder()
+                .endpoint("http://localhost:8080/cart/receipt")
+                .method("GET")
+                .build();
+    }
+
+    private Stream<Request> readRequests(final Optional<Path> requestsFile) throws IOException {
+        final var requestReader =
+            requestsFile.isPresent()
+                ? RequestReader.open(requestsFile.get(), OBJECT_MAPPER)
+                : new RequestReader(getClass().getClassLoader().getResourceAsStream(REQUESTS_JSON), OBJECT_MAPPER);
+
+        return requestReader.stream();
+    }
+
+    private HttpClient.Builder httpClientBuilder() {
         return HttpClient.newBuilder()
                 .version(HttpClient.Version.HTTP_2)
                 .followRedirects(HttpClient.Redirect.NORMAL)
-                .connectTimeout(Duration.ofSeconds(30))
-                .cookieHandler(new CookieManager())
-                .build();
+                .connectTimeout(Duration.ofSeconds(30));
     }
 
     private Function<Request, HttpRequest> toHttpRequest() {
@@ -171,6 +213,12 @@ public class Main {
     }
 
     public static void main(String... args) throws Exception {
-        new Main().run();
+        final var loadOptions = LoadOptions.fromArgs(args);
+
+        if (loadOptions.isPresent()) {
+            new Main().runLoad(loadOptions.get());
+        } else {
+            new Main().run(LoadOptions.requestsOf(args));
+        }
     }
 }
@@ -0,0 +1,274 @@
+package griz.shop.client;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Replays a scenario of requests asynchronously, with up to a fixed number of requests in flight, and reports the
+ * results with a {@link LoadReport}.
+ *
+ * <p>Unlike the {@link LoadGenerator}, no thread waits for a response: every request is sent with
+ * {@link HttpClient#sendAsync}, and all sessions share a single {@link HttpClient}, so that their requests are
+ * multiplexed as concurrent streams over HTTP/2 where the server supports it. A request is only sent while fewer than
+ * the in-flight window of requests are outstanding; the others wait in order of arrival, without blocking a thread.
+ *
+ * <p>The number of users is the number of concurrent sessions. Users take the sessions of the {@link Scenario} in turn
+ * until none are left, and every session tracks its own session cookie instead of sharing a
+ * {@link java.net.CookieManager}. Within a session, requests are sent in the order of the scenario: a request that
+ * may change the cart waits for all earlier requests of the session to complete, and consecutive {@code GET}
+ * requests, which only read the cart, are in flight together. There is no think time, so the client saturates the
+ * server with the window of requests.
+ *
+ * @author nichollsmc
+ */
+public class PipelinedReplay {
+
+    private static final String METHOD_GET        = "GET";
+    private static final String HEADER_COOKIE     = "Cookie";
+    private static final String HEADER_SET_COOKIE = "Set-Cookie";
+
+    private final LoadOptions                  options;
+    private final Supplier<HttpClient.Builder> httpClientBuilder;
+    private final LoadReport                   report;
+    private final Window                       window;
+
+    public PipelinedReplay(final LoadOptions options, final Supplier<HttpClient.Builder> httpClientBuilder) {
+        this.options           = options;
+        this.httpClientBuilder = httpClientBuilder;
+        this.report            = new LoadReport();
+        this.window            = new Window(options.getInFlight());
+    }
+
+    /**
+     * Runs the sessions of the scenario and waits for all sessions to complete.
+     *
+     * @param scenario the {@link Scenario} of the sessions sent by the users
+     * @return the summary of the {@link LoadReport}
+     * @throws InterruptedException if interrupted while waiting for the sessions
+     */
+    public String run(final Scenario scenario) throws InterruptedException {
+        final var clientExecutor = Executors.newCachedThreadPool();
+        final var client         = httpClientBuilder.get().executor(clientExecutor).build();
+        final var started        = System.nanoTime();
+
+        try {
+            final var sessions = new ArrayList<CompletableFuture<Void>>(options.getUsers());
+
+            for (int user = 0; user < options.getUsers(); user++) {
+                sessions.add(runSessions(client, scenario));
+            }
+
+            try {
+                CompletableFuture.allOf(sessions.toArray(new CompletableFuture[0])).get();
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+            }
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+
+        return report.summary(options, Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private CompletableFuture<Void> runSessions(final HttpClient client, final Scenario scenario) {
+        return scenario.nextSession()
+                .map(requests ->
+                    new Session(client).run(new Steps(requests.iterator()))
+                        .whenComplete((v, e) -> requests.close())
+                        .thenCompose(v -> runSessions(client, scenario)))
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * The steps of a session, grouped from its requests as they are read.
+     *
+     * <p>The first request of a session is always a step on its own, since it establishes the session cookie that the
+     * other requests depend on. Consecutive {@code GET} requests after it are grouped into one step, so a step reads
+     * one request past its end.
+     */
+    private static final class Steps implements Iterator<List<HttpRequest>> {
+
+        private final Iterator<HttpRequest> requests;
+
+        private HttpRequest next;
+        private boolean     first = true;
+
+        private Steps(final Iterator<HttpRequest> requests) {
+            this.requests = requests;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null || requests.hasNext();
+        }
+
+        @Override
+        public List<HttpRequest> next() {
+            final var step = new ArrayList<HttpRequest>(List.of(take()));
+
+            if (first) {
+                first = false;
+                return step;
+            }
+
+            while (METHOD_GET.equals(step.get(0).method()) && hasNext()) {
+                final var httpRequest = take();
+
+                if (!METHOD_GET.equals(httpRequest.method())) {
+                    next = httpRequest;
+                    break;
+                }
+
+                step.add(httpRequest);
+            }
+
+            return step;
+        }
+
+        private HttpRequest take() {
+            if (next == null) {
+                return requests.next();
+            }
+
+            final var httpRequest = next;
+
+            next = null;
+
+            return httpRequest;
+        }
+    }
+
+    /**
+     * A session of the replay, sending the steps of the scenario in order with its own session cookie.
+     */
+    private final class Session {
+
+        private final HttpClient client;
+
+        private volatile String cookie;
+
+        private Session(final HttpClient client) {
+            this.client = client;
+        }
+
+        /*
+         * The next step is only taken once the previous one has completed, so the requests of the session are read as
+         * they are sent.
+         */
+        CompletableFuture<Void> run(final Iterator<List<HttpRequest>> steps) {
+            if (!steps.hasNext()) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            return CompletableFuture.allOf(steps.next().stream().map(this::send).toArray(CompletableFuture[]::new))
+                    .thenCompose(v -> run(steps));
+        }
+
+        private CompletableFuture<Void> send(final HttpRequest httpRequest) {
+            final var sent     = new CompletableFuture<Void>();
+            final var endpoint = LoadReport.endpointOf(httpRequest);
+            final var request  = withCookie(httpRequest);
+
+            window.execute(() -> {
+                final var start = System.nanoTime();
+
+                client.sendAsync(request, BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error != null) {
+                            report.record(endpoint, System.nanoTime() - start, 0);
+                        } else {
+                            report.record(endpoint, System.nanoTime() - start, response.statusCode());
+                            keepCookie(response);
+                        }
+
+                        window.release();
+                        sent.complete(null);
+                    });
+            });
+
+            return sent;
+        }
+
+        private HttpRequest withCookie(final HttpRequest httpRequest) {
+            final var sessionCookie = cookie;
+
+            if (sessionCookie == null) {
+                return httpRequest;
+            }
+
+            final var builder =
+                HttpRequest.newBuilder(httpRequest.uri())
+                    .method(httpRequest.method(),
+                            httpRequest.bodyPublisher().orElseGet(HttpRequest.BodyPublishers::noBody))
+                    .header(HEADER_COOKIE, sessionCookie);
+
+            httpRequest.timeout().ifPresent(builder::timeout);
+            httpRequest.headers().map().forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+
+            return builder.build();
+        }
+
+        private void keepCookie(final HttpResponse<?> response) {
+            final var cookies = response.headers().allValues(HEADER_SET_COOKIE);
+
+            if (!cookies.isEmpty()) {
+                cookie = cookies.stream()
+                            .map(setCookie -> setCookie.split(";", 2)[0].trim())
+                            .collect(joining("; "));
+            }
+        }
+    }
+
+    /**
+     * The in-flight window, running queued sends in order of arrival while permits are available.
+     *
+     * <p>A send is queued first and only then offered a permit, and a released permit is offered to the queue, so a
+     * queued send is never left waiting while a permit is free.
+     */
+    private static final class Window {
+
+        private final Semaphore       permits;
+        private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+        private Window(final int size) {
+            this.permits = new Semaphore(size);
+        }
+
+        void execute(final Runnable send) {
+            pending.add(send);
+            drain();
+        }
+
+        void release() {
+            permits.release();
+            drain();
+        }
+
+        private void drain() {
+            while (!pending.isEmpty() && permits.tryAcquire()) {
+                final var send = pending.poll();
+
+                if (send == null) {
+                    permits.release();
+                } else {
+                    send.run();
+                }
+            }
+        }
+    }
+}
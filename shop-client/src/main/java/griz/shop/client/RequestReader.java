@@ -0,0 +1,144 @@
+package griz.shop.client;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the {@link Request}s of a request file one at a time, with Jackson's streaming {@link JsonParser}.
+ *
+ * <p>A request file is either a JSON array of requests, like {@code requests.json}, or newline-delimited JSON with one
+ * request per line. Only the request being decoded is held in memory, next to the read buffer of the parser, so
+ * request files of any size are read in constant memory, and every request can be sent as soon as it is decoded.
+ * Files are read sequentially from a {@link FileChannel}.
+ *
+ * @author nichollsmc
+ */
+public class RequestReader implements Iterator<Request>, Closeable {
+
+    private final JsonParser   parser;
+    private final ObjectReader requestReader;
+
+    private JsonToken token;
+
+    /**
+     * Creates a {@code RequestReader} of the provided stream, positioned at the first request.
+     *
+     * @param inputStream the stream of the request file, closed with this {@code RequestReader}
+     * @param objectMapper the {@link ObjectMapper} decoding the requests
+     * @throws IOException if the start of the stream cannot be read or is not a request file
+     */
+    public RequestReader(final InputStream inputStream, final ObjectMapper objectMapper) throws IOException {
+        this.parser        = objectMapper.getFactory().createParser(inputStream);
+        this.requestReader = objectMapper.readerFor(Request.class);
+
+        token = parser.nextToken();
+
+        if (token == JsonToken.START_ARRAY) {
+            token = parser.nextToken();
+        }
+
+        try {
+            checkToken();
+        } catch (IOException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a {@code RequestReader} of the request file at the provided path.
+     *
+     * @param path the path of the request file
+     * @param objectMapper the {@link ObjectMapper} decoding the requests
+     * @return the {@code RequestReader}
+     * @throws IOException if the file cannot be opened or is not a request file
+     */
+    public static RequestReader open(final Path path, final ObjectMapper objectMapper) throws IOException {
+        final var channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            return new RequestReader(Channels.newInputStream(channel), objectMapper);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return token == JsonToken.START_OBJECT;
+    }
+
+    /**
+     * Decodes the next {@link Request}.
+     *
+     * @return the {@code Request}
+     * @throws NoSuchElementException if all requests have been read
+     * @throws UncheckedIOException if the request file cannot be read or decoded
+     */
+    @Override
+    public Request next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            final Request request = requestReader.readValue(parser);
+
+            token = parser.nextToken();
+            checkToken();
+
+            return request;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a sequential {@link Stream} of the remaining requests, which closes this {@code RequestReader} when
+     * closed.
+     *
+     * @return the {@code Stream} of the requests
+     */
+    public Stream<Request> stream() {
+        final var requests = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+
+        return StreamSupport.stream(requests, false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private void checkToken() throws IOException {
+        if (token != null && token != JsonToken.START_OBJECT && token != JsonToken.END_ARRAY) {
+            throw new JsonParseException(parser, "Expected a request object, found " + token);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,87 @@
+package griz.shop.client;
+
+import java.net.http.HttpRequest;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * The sessions of a load run, taken in turn by concurrent users until none are left.
+ *
+ * <p>Each session is the stream of requests a user sends, in order, in a session of its own. Sessions are taken from
+ * an {@link Iterator}, so a scenario of any number of sessions can be generated lazily, and the requests of a session
+ * are only read as they are sent. The stream of a session must be closed once its requests have been sent.
+ *
+ * @author nichollsmc
+ */
+public final class Scenario {
+
+    private final Iterator<Stream<HttpRequest>> sessions;
+
+    private Scenario(final Iterator<Stream<HttpRequest>> sessions) {
+        this.sessions = sessions;
+    }
+
+    /**
+     * Returns a {@code Scenario} of the same requests repeated for a number of sessions.
+     *
+     * <p>The requests are opened anew for every session, so a request file is read again by every session rather than
+     * held in memory.
+     *
+     * @param requests the supplier of the stream of the requests of a session, called once per session
+     * @param sessions the number of sessions
+     * @return the {@code Scenario}
+     */
+    public static Scenario repeat(final Supplier<Stream<HttpRequest>> requests, final long sessions) {
+        return new Scenario(new Iterator<>() {
+
+            private long taken;
+
+            @Override
+            public boolean hasNext() {
+                return taken < sessions;
+            }
+
+            @Override
+            public Stream<HttpRequest> next() {
+                taken++;
+
+                return requests.get();
+            }
+        });
+    }
+
+    /**
+     * Returns a {@code Scenario} of the sessions of a {@link Workload}, generated as they are taken.
+     *
+     * @param generator the {@link WorkloadGenerator} of the sessions
+     * @param toHttpRequest the conversion of a generated {@link Request} to an {@link HttpRequest}
+     * @return the {@code Scenario}
+     */
+    public static Scenario generate(final WorkloadGenerator generator,
+                                    final Function<Request, HttpRequest> toHttpRequest) {
+        return new Scenario(new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return generator.hasNext();
+            }
+
+            @Override
+            public Stream<HttpRequest> next() {
+                return generator.next().stream().map(toHttpRequest);
+            }
+        });
+    }
+
+    /**
+     * Takes the next session.
+     *
+     * @return an {@link Optional} for the requests of the session, or an empty {@code Optional} if no sessions are left
+     */
+    public synchronized Optional<Stream<HttpRequest>> nextSession() {
+        return sessions.hasNext() ? Optional.of(sessions.next()) : Optional.empty();
+    }
+}
@@ -0,0 +1,123 @@
+package griz.shop.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Description of a synthetic workload, from which the {@link WorkloadGenerator} generates the requests of every
+ * session.
+ *
+ * <p>Every session fills a cart with a number of distinct {@link #items} drawn from {@link #itemsPerCart}, each with a
+ * quantity drawn from the weighted {@link #quantities}, and ends with a receipt. After every item added, the rates give
+ * the probability of adding an item of the cart again (which the server rejects), of updating the quantity of an item,
+ * of removing an item, and of requesting the receipt. An item that was removed is never added again. The default
+ * quantities put a share of the items in every bulk discount tier of the server.
+ *
+ * <p>Workloads are read from JSON, e.g.:
+ * <pre>
+ * {
+ *   "sessions": 1000000,
+ *   "seed": 42,
+ *   "items": ["apple", "banana", "coconut", "kumquat", "orange"],
+ *   "itemsPerCart": { "min": 1, "max": 5 },
+ *   "quantities": [{ "min": 1, "max": 10, "weight": 4 }, { "min": 11, "max": 100, "weight": 3 }],
+ *   "duplicateAddRate": 0.05,
+ *   "updateRate": 0.2,
+ *   "removeRate": 0.1,
+ *   "receiptRate": 0.1
+ * }
+ * </pre>
+ *
+ * @author nichollsmc
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Workload {
+
+    @Builder.Default
+    private long          sessions         = 1000;
+    @Builder.Default
+    private long          seed             = 0;
+    @Builder.Default
+    private String        endpoint         = "http://localhost:8080/cart";
+    @Builder.Default
+    private List<String>  items            = List.of("apple", "apricot", "banana", "blackberry", "blueberry",
+                                                     "cherry", "coconut", "date", "fig", "grape",
+                                                     "guava", "kiwi", "kumquat", "lemon", "lime",
+                                                     "mango", "orange", "papaya", "peach", "pear");
+    @Builder.Default
+    private Range         itemsPerCart     = new Range(1, 20, 1);
+    @Builder.Default
+    private List<Range>   quantities       = List.of(new Range(1, 10, 4),
+                                                     new Range(11, 100, 3),
+                                                     new Range(101, 1000, 2),
+                                                     new Range(1001, 10000, 1));
+    @Builder.Default
+    private double        duplicateAddRate = 0.05;
+    @Builder.Default
+    private double        updateRate       = 0.2;
+    @Builder.Default
+    private double        removeRate       = 0.1;
+    @Builder.Default
+    private double        receiptRate      = 0.1;
+
+    /**
+     * Checks that the {@code Workload} can be generated.
+     *
+     * @return this {@code Workload}
+     * @throws IllegalArgumentException if a count, range or rate is out of bounds, or the items cannot fill a cart
+     */
+    public Workload validate() {
+        if (sessions < 1) {
+            throw new IllegalArgumentException("The number of sessions must be positive");
+        }
+
+        if (itemsPerCart == null || itemsPerCart.getMin() < 1 || !itemsPerCart.isValid()) {
+            throw new IllegalArgumentException("The items per cart must be a positive range");
+        }
+
+        if (items == null || items.stream().anyMatch(item -> item == null || item.isBlank())
+                || items.stream().distinct().count() != items.size()) {
+            throw new IllegalArgumentException("The items must be distinct names");
+        }
+
+        if (itemsPerCart.getMax() > items.size()) {
+            throw new IllegalArgumentException(
+                "The items per cart cannot exceed the " + items.size() + " items: " + itemsPerCart.getMax());
+        }
+
+        if (quantities == null || quantities.isEmpty() || !quantities.stream().allMatch(Range::isValid)) {
+            throw new IllegalArgumentException("The quantities must be one or more positive ranges");
+        }
+
+        for (final var rate : List.of(duplicateAddRate, updateRate, removeRate, receiptRate)) {
+            if (rate < 0 || rate > 1) {
+                throw new IllegalArgumentException("Rates must be between 0 and 1: " + rate);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * A range of values from {@code min} to {@code max} inclusive, with the relative weight of the range among others.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Range {
+        private long min;
+        private long max;
+        private long weight = 1;
+
+        boolean isValid() {
+            return min >= 1 && max >= min && weight >= 1;
+        }
+    }
+}
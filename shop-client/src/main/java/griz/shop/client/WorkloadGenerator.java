@@ -0,0 +1,144 @@
+package griz.shop.client;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the requests of the sessions of a {@link Workload}, one session at a time.
+ *
+ * <p>Sessions are generated on demand by {@link #next()}, so only the sessions currently being sent are held in
+ * memory, however many sessions the {@code Workload} has. Each session is generated from its own random source,
+ * derived from the seed of the {@code Workload} and the index of the session, so a seed always produces the same
+ * sessions, regardless of the order in which concurrent users take them.
+ *
+ * <p>The items of a cart are the items of the {@code Workload} in a random order. Items added again and updated are
+ * picked from the items currently in the cart, so an item that was removed is never named again by its session.
+ * Prices are drawn uniformly from {@value #MIN_PRICE_CENTS} to {@value #MAX_PRICE_CENTS} cents.
+ *
+ * @author nichollsmc
+ */
+public class WorkloadGenerator implements Iterator<List<Request>> {
+
+    private static final long GOLDEN_GAMMA    = 0x9E3779B97F4A7C15L;
+    private static final int  MIN_PRICE_CENTS = 10;
+    private static final int  MAX_PRICE_CENTS = 1000;
+
+    private final Workload workload;
+    private final long     totalWeight;
+
+    private long session;
+
+    public WorkloadGenerator(final Workload workload) {
+        this.workload    = workload.validate();
+        this.totalWeight = workload.getQuantities().stream().mapToLong(Workload.Range::getWeight).sum();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return session < workload.getSessions();
+    }
+
+    /**
+     * Generates the requests of the next session, in the order they are sent.
+     *
+     * @return the requests of the session
+     * @throws NoSuchElementException if all sessions have been generated
+     */
+    @Override
+    public List<Request> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return generate(new SplittableRandom(workload.getSeed() + GOLDEN_GAMMA * session++));
+    }
+
+    private List<Request> generate(final SplittableRandom random) {
+        final var requests = new ArrayList<Request>();
+        final var cart     = new ArrayList<String>();
+        final var names    = new ArrayList<>(workload.getItems());
+        final var items    = between(random, workload.getItemsPerCart().getMin(), workload.getItemsPerCart().getMax());
+
+        Collections.shuffle(names, new Random(random.nextLong()));
+
+        for (int i = 0; i < items; i++) {
+            final var name = names.get(i);
+
+            requests.add(addItem(name, quantity(random), price(random)));
+            cart.add(name);
+
+            if (occurs(random, workload.getDuplicateAddRate())) {
+                requests.add(addItem(pick(random, cart), quantity(random), price(random)));
+            }
+
+            if (occurs(random, workload.getUpdateRate())) {
+                requests.add(request("Post", "/" + pick(random, cart), Map.of("quantity", quantity(random))));
+            }
+
+            if (occurs(random, workload.getRemoveRate())) {
+                requests.add(request("Delete", "/" + cart.remove(random.nextInt(cart.size())), Map.of()));
+            }
+
+            if (occurs(random, workload.getReceiptRate())) {
+                requests.add(receipt());
+            }
+        }
+
+        requests.add(receipt());
+
+        return requests;
+    }
+
+    private Request addItem(final String name, final long quantity, final String price) {
+        return request("Put", "", Map.of("name", name, "quantity", quantity, "pricePerItem", price));
+    }
+
+    private Request receipt() {
+        return request("Get", "/receipt", Map.of());
+    }
+
+    private Request request(final String method, final String path, final Map<String, Object> payload) {
+        return Request.builder()
+                .method(method)
+                .endpoint(workload.getEndpoint() + path)
+                .payload(payload)
+                .build();
+    }
+
+    private long quantity(final SplittableRandom random) {
+        var weight = random.nextLong(totalWeight);
+
+        for (final var range : workload.getQuantities()) {
+            if (weight < range.getWeight()) {
+                return between(random, range.getMin(), range.getMax());
+            }
+
+            weight -= range.getWeight();
+        }
+
+        throw new IllegalStateException("No quantity range for weight " + weight);
+    }
+
+    private static String price(final SplittableRandom random) {
+        return BigDecimal.valueOf(random.nextInt(MIN_PRICE_CENTS, MAX_PRICE_CENTS + 1), 2).toPlainString();
+    }
+
+    private static long between(final SplittableRandom random, final long min, final long max) {
+        return random.nextLong(min, max + 1);
+    }
+
+    private static boolean occurs(final SplittableRandom random, final double rate) {
+        return random.nextDouble() < rate;
+    }
+
+    private static String pick(final SplittableRandom random, final List<String> cart) {
+        return cart.get(random.nextInt(cart.size()));
+    }
+}
@@ -0,0 +1,62 @@
+package griz.shop.client;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestReaderTest {
+
+    private static final String REQUESTS_JSON = "requests.json";
+
+    @Test
+    void readsTheSameRequestsAsAList() throws IOException {
+        final List<Request> expected;
+
+        try (var inputStream = requestsJson()) {
+            expected = Main.OBJECT_MAPPER.readValue(inputStream, new TypeReference<List<Request>>() {});
+        }
+
+        assertTrue(expected.size() > 1);
+        assertEquals(expected, read(requestsJson()));
+    }
+
+    @Test
+    void readsNewlineDelimitedRequests() throws IOException {
+        final var lines    = List.of(
+            "{\"method\":\"Put\",\"endpoint\":\"/cart\",\"payload\":{\"name\":\"apple\",\"quantity\":10}}",
+            "{\"method\":\"Delete\",\"endpoint\":\"/cart/apple\",\"payload\":{}}",
+            "{\"method\":\"Get\",\"endpoint\":\"/cart/receipt\"}");
+        final var expected =
+            Main.OBJECT_MAPPER.readValue("[" + String.join(",", lines) + "]", new TypeReference<List<Request>>() {});
+
+        assertEquals(3, expected.size());
+        assertEquals(expected, read(new ByteArrayInputStream(String.join("\n", lines).getBytes(UTF_8))));
+    }
+
+    @Test
+    void rejectsFilesOfOtherValues() {
+        assertThrows(JsonParseException.class, () ->
+            new RequestReader(new ByteArrayInputStream("[1, 2]".getBytes(UTF_8)), Main.OBJECT_MAPPER));
+    }
+
+    private static List<Request> read(final InputStream inputStream) throws IOException {
+        try (var requests = new RequestReader(inputStream, Main.OBJECT_MAPPER).stream()) {
+            return requests.collect(Collectors.toList());
+        }
+    }
+
+    private static InputStream requestsJson() {
+        return RequestReaderTest.class.getClassLoader().getResourceAsStream(REQUESTS_JSON);
+    }
+}
@@ -0,0 +1,110 @@
+package griz.shop.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkloadGeneratorTest {
+
+    @Test
+    void sameSeedGeneratesSameSessions() {
+        final var sessions = sessionsOf(workload(42));
+
+        assertEquals(100, sessions.size());
+        assertEquals(sessions, sessionsOf(workload(42)));
+        assertNotEquals(sessions, sessionsOf(workload(43)));
+    }
+
+    @Test
+    void sessionsEndWithAReceipt() {
+        final var generator = new WorkloadGenerator(workload(42));
+
+        while (generator.hasNext()) {
+            final var session = generator.next();
+            final var last    = session.get(session.size() - 1);
+
+            assertEquals("Get", last.getMethod());
+            assertEquals("http://localhost:8080/cart/receipt", last.getEndpoint());
+        }
+
+        assertFalse(generator.hasNext());
+        assertThrows(NoSuchElementException.class, generator::next);
+    }
+
+    @Test
+    void removedItemsAreNeverNamedAgain() {
+        final var workload = workload(42);
+
+        workload.setRemoveRate(0.5);
+        workload.setDuplicateAddRate(0.5);
+        workload.setUpdateRate(0.5);
+
+        for (final var session : sessionsOf(workload)) {
+            final var cart    = new HashSet<String>();
+            final var removed = new HashSet<String>();
+
+            for (final var request : session) {
+                final var path = request.getEndpoint().substring(workload.getEndpoint().length());
+
+                switch (request.getMethod()) {
+                    case "Put":
+                        final var name = (String) request.getPayload().get("name");
+
+                        assertTrue(workload.getItems().contains(name));
+                        assertFalse(removed.contains(name));
+                        cart.add(name);
+                        break;
+                    case "Post":
+                        assertTrue(cart.contains(path.substring(1)));
+                        break;
+                    case "Delete":
+                        assertTrue(cart.remove(path.substring(1)));
+                        removed.add(path.substring(1));
+                        break;
+                    default:
+                        assertEquals("/receipt", path);
+                }
+            }
+        }
+    }
+
+    @Test
+    void itemsPerCartCannotExceedItems() {
+        final var workload = workload(42);
+
+        workload.setItemsPerCart(new Workload.Range(1, workload.getItems().size() + 1, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> new WorkloadGenerator(workload));
+    }
+
+    @Test
+    void itemsMustBeDistinct() {
+        final var workload = workload(42);
+
+        workload.setItems(List.of("apple", "apple"));
+        workload.setItemsPerCart(new Workload.Range(1, 2, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> new WorkloadGenerator(workload));
+    }
+
+    private static List<List<Request>> sessionsOf(final Workload workload) {
+        final var sessions = new ArrayList<List<Request>>();
+
+        new WorkloadGenerator(workload).forEachRemaining(sessions::add);
+
+        return sessions;
+    }
+
+    private static Workload workload(final long seed) {
+        return Workload.builder().sessions(100).seed(seed).build();
+    }
+}
@@ -2,6 +2,12 @@
 // Shop Server : Build
 // ======================================================================
 
+import com.google.protobuf.gradle.generateProtoTasks
+import com.google.protobuf.gradle.id
+import com.google.protobuf.gradle.plugins
+import com.google.protobuf.gradle.protobuf
+import com.google.protobuf.gradle.protoc
+
 // Plugins
 // ========================================
 
@@ -11,6 +17,8 @@ plugins {
     id("net.ltgt.apt-eclipse")            version "0.21"
     id("io.freefair.lombok")              version "5.0.0"
     id("com.github.spotbugs")             version "4.0.4"
+    id("me.champeau.gradle.jmh")          version "0.5.0"
+    id("com.google.protobuf")             version "0.8.12"
 }
 
 // GAV
@@ -44,6 +52,7 @@ dependencies {
     testImplementation(platform("io.micronaut:micronaut-bom:1.3.6"))
     testImplementation("org.junit.jupiter:junit-jupiter-api")
     testImplementation("io.micronaut.test:micronaut-test-junit5")
+    testImplementation("org.luaj:luaj-jse:3.0.1")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine")
 
     compileOnly("org.projectlombok:lombok:1.18.12")
@@ -52,6 +61,7 @@ dependencies {
     annotationProcessor(platform("io.micronaut:micronaut-bom:1.3.6"))
     annotationProcessor("io.micronaut:micronaut-inject-java")
     annotationProcessor("io.micronaut:micronaut-validation")
+    annotationProcessor("io.micronaut:micronaut-graal")
 
     implementation(platform("io.micronaut:micronaut-bom:1.3.6"))
     implementation("io.micronaut:micronaut-http-client")
@@ -60,15 +70,40 @@ dependencies {
     implementation("io.micronaut:micronaut-runtime")
     implementation("io.micronaut:micronaut-session")
     implementation("io.micronaut.configuration:micronaut-redis-lettuce")
+    implementation("com.github.ben-manes.caffeine:caffeine:2.8.1")
     implementation("io.micronaut:micronaut-http-server-netty")
     implementation("io.micronaut.configuration:micronaut-micrometer-core")
     implementation("io.micronaut.configuration:micronaut-micrometer-registry-statsd")
     implementation("io.micronaut:micronaut-management")
+    implementation("io.micronaut.grpc:micronaut-grpc-runtime")
+    implementation("io.rsocket:rsocket-core:1.0.0")
+    implementation("io.rsocket:rsocket-transport-netty:1.0.0")
     implementation("javax.annotation:javax.annotation-api")
 
     runtimeOnly("ch.qos.logback:logback-classic:1.2.3")
 }
 
+// Protocol Buffers
+// ========================================
+
+protobuf {
+    protoc {
+        artifact = "com.google.protobuf:protoc:3.11.4"
+    }
+    plugins {
+        id("grpc") {
+            artifact = "io.grpc:protoc-gen-grpc-java:1.28.1"
+        }
+    }
+    generateProtoTasks {
+        all().forEach { task ->
+            task.plugins {
+                id("grpc")
+            }
+        }
+    }
+}
+
 // Repositories
 // ========================================
 
@@ -100,6 +135,29 @@ spotbugs {
     }
 }
 
+// Benchmarks
+// ========================================
+
+jmh {
+    jmhVersion   = "1.23"
+    include      = listOf(project.findProperty("jmh.include")?.toString() ?: ".*")
+    resultFormat = "JSON"
+    resultsFile  = file("$buildDir/reports/jmh/results-${gitRevision()}.json")
+
+    project.findProperty("jmh.threads")?.let { threads = it.toString().toInt() }
+}
+
+fun gitRevision(): String =
+    try {
+        ProcessBuilder("git", "rev-parse", "--short", "HEAD")
+            .directory(projectDir)
+            .start()
+            .inputStream.bufferedReader().readText().trim()
+            .ifEmpty { "unknown" }
+    } catch (e: java.io.IOException) {
+        "unknown"
+    }
+
 // Tasks
 // ========================================
 
@@ -113,6 +171,11 @@ tasks.withType<Jar> {
     }
 }
 
+tasks.withType<JavaCompile> {
+    options.compilerArgs.addAll(listOf("-Amicronaut.processing.group=${project.group}",
+                                       "-Amicronaut.processing.module=${project.name}"))
+}
+
 tasks.withType<JavaExec>() {
     jvmArgs("-noverify", "-XX:TieredStopAtLevel=1", "-Dcom.sun.management.jmxremote")
 }
@@ -120,3 +183,28 @@ tasks.withType<JavaExec>() {
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+// Native Image
+// ========================================
+
+val nativeImage by tasks.registering(Exec::class) {
+    group       = "build"
+    description = "Builds a GraalVM native image of the server from the shadow jar."
+
+    val shadowJar = tasks.named<Jar>("shadowJar")
+    val outputDir = file("$buildDir/native-image")
+
+    dependsOn(shadowJar)
+    inputs.file(shadowJar.flatMap { it.archiveFile })
+    outputs.file(outputDir.resolve(project.name))
+    workingDir(outputDir)
+
+    doFirst {
+        outputDir.mkdirs()
+    }
+
+    executable(System.getenv("GRAALVM_HOME")?.let { "$it/bin/native-image" } ?: "native-image")
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf("--no-server", "-cp", shadowJar.get().archiveFile.get().asFile.absolutePath)
+    })
+}
@@ -0,0 +1,104 @@
+package griz.shop.server.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * End-to-end comparison of the blocking {@link CartOperations} and the non-blocking {@link ReactiveCartOperations}
+ * endpoints, over HTTP against a running server.
+ *
+ * <p>Each benchmark thread is a user with its own session and a cart of {@value #ITEMS} items. Both throughput and
+ * the latency distribution are measured. To compare the endpoints at a fixed p99, repeat the run with an increasing
+ * number of threads (e.g. {@code -Pjmh.threads=256}) and compare the highest throughput of each endpoint whose p99
+ * stays under the target.
+ *
+ * @author nichollsmc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(64)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CartOperationsBenchmark {
+
+    static final int ITEMS = 10;
+
+    @Param({"http://localhost:8080"})
+    String baseUrl;
+
+    @Param({"cart", "rx/cart"})
+    String api;
+
+    /**
+     * A user of the cart API, with its own connection and session.
+     */
+    @State(Scope.Thread)
+    public static class User {
+
+        private HttpClient client;
+        private URI        cart;
+        private long       requests;
+
+        @Setup
+        public void setUp(final CartOperationsBenchmark benchmark) throws IOException, InterruptedException {
+            client = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+            cart   = URI.create(benchmark.baseUrl + "/" + benchmark.api);
+
+            for (int i = 0; i < ITEMS; i++) {
+                send("PUT", cart, format("{\"name\":\"item-%d\",\"quantity\":%d,\"pricePerItem\":\"1.25\"}", i, i + 1));
+            }
+        }
+
+        int send(final String method, final URI uri, final String body) throws IOException, InterruptedException {
+            final var request =
+                HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .method(method, body == null ? BodyPublishers.noBody() : BodyPublishers.ofString(body))
+                    .build();
+
+            return client.send(request, BodyHandlers.discarding()).statusCode();
+        }
+
+        URI nextItem() {
+            return URI.create(cart + "/item-" + (requests++ % ITEMS));
+        }
+    }
+
+    @Benchmark
+    public int getItem(final User user) throws IOException, InterruptedException {
+        return user.send("GET", user.nextItem(), null);
+    }
+
+    @Benchmark
+    public int updateItem(final User user) throws IOException, InterruptedException {
+        return user.send("POST", user.nextItem(), format("{\"quantity\":%d}", 1 + user.requests % 1000));
+    }
+
+    @Benchmark
+    public int receipt(final User user) throws IOException, InterruptedException {
+        return user.send("GET", URI.create(user.cart + "/receipt"), null);
+    }
+}
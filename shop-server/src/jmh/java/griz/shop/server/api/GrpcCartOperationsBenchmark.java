@@ -0,0 +1,149 @@
+package griz.shop.server.api;
+
+import griz.shop.server.grpc.CartProto;
+import griz.shop.server.grpc.CartServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static griz.shop.server.api.CartOperationsBenchmark.ITEMS;
+
+/**
+ * End-to-end benchmark of the {@link GrpcCartOperations} service, over gRPC against a running server.
+ *
+ * <p>The benchmarks, users and settings match those of the {@link CartOperationsBenchmark}, so that the results of the
+ * two can be compared side by side: each benchmark thread is a user with its own channel and a cart of
+ * {@value CartOperationsBenchmark#ITEMS} items. {@code addItems} additionally streams {@value #BULK_ITEMS} items into
+ * a new cart with a single {@code AddItems} call.
+ *
+ * @author nichollsmc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(64)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class GrpcCartOperationsBenchmark {
+
+    static final int BULK_ITEMS = 100;
+
+    @Param({"localhost:50051"})
+    String target;
+
+    /**
+     * A user of the gRPC cart API, with its own channel and cart.
+     */
+    @State(Scope.Thread)
+    public static class User {
+
+        private ManagedChannel                          channel;
+        private CartServiceGrpc.CartServiceBlockingStub stub;
+        private CartServiceGrpc.CartServiceStub         asyncStub;
+        private String                                  cartId;
+        private long                                    requests;
+
+        @Setup
+        public void setUp(final GrpcCartOperationsBenchmark benchmark) {
+            channel   = ManagedChannelBuilder.forTarget(benchmark.target).usePlaintext().build();
+            stub      = CartServiceGrpc.newBlockingStub(channel);
+            asyncStub = CartServiceGrpc.newStub(channel);
+            cartId    = UUID.randomUUID().toString();
+
+            for (int i = 0; i < ITEMS; i++) {
+                stub.addItem(CartProto.AddItemRequest.newBuilder()
+                                 .setCartId(cartId)
+                                 .setItem(item(i))
+                                 .build());
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws InterruptedException {
+            channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        String nextItem() {
+            return "item-" + (requests++ % ITEMS);
+        }
+
+        static CartProto.CartItem item(final int i) {
+            return CartProto.CartItem.newBuilder()
+                    .setName("item-" + i)
+                    .setQuantity(i + 1)
+                    .setPricePerItem("1.25")
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public CartProto.CartItem getItem(final User user) {
+        return user.stub.getItem(CartProto.ItemRequest.newBuilder()
+                                     .setCartId(user.cartId)
+                                     .setName(user.nextItem())
+                                     .build());
+    }
+
+    @Benchmark
+    public CartProto.CartItem updateItem(final User user) {
+        return user.stub.updateItemQuantity(CartProto.UpdateItemQuantityRequest.newBuilder()
+                                                .setCartId(user.cartId)
+                                                .setName(user.nextItem())
+                                                .setQuantity(1 + user.requests % 1000)
+                                                .build());
+    }
+
+    @Benchmark
+    public CartProto.Receipt receipt(final User user) {
+        return user.stub.getReceipt(CartProto.CartRequest.newBuilder().setCartId(user.cartId).build());
+    }
+
+    @Benchmark
+    public CartProto.BatchResult addItems(final User user) throws ExecutionException, InterruptedException {
+        final var cartId = UUID.randomUUID().toString();
+        final var result = new CompletableFuture<CartProto.BatchResult>();
+        final var items  = user.asyncStub.addItems(new StreamObserver<>() {
+
+            @Override
+            public void onNext(final CartProto.BatchResult batchResult) {
+                result.complete(batchResult);
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+                result.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+
+        for (int i = 0; i < BULK_ITEMS; i++) {
+            items.onNext(CartProto.AddItemRequest.newBuilder().setCartId(cartId).setItem(User.item(i)).build());
+        }
+
+        items.onCompleted();
+
+        return result.get();
+    }
+}
@@ -0,0 +1,67 @@
+package griz.shop.server.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static griz.shop.server.domain.CartFixtures.QuantityDistribution.MIXED;
+
+/**
+ * Item lookup and removal on {@link Cart}s of increasing size; the cost per operation should stay flat.
+ *
+ * @author nichollsmc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CartBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    int cartSize;
+
+    private Cart     cart;
+    private String[] lookupNames;
+    private int      next;
+
+    @Setup
+    public void setUp() {
+        cart        = CartFixtures.cart(cartSize, MIXED);
+        lookupNames = new String[1024];
+
+        for (int i = 0; i < lookupNames.length; i++) {
+            lookupNames[i] = CartFixtures.itemName((int) ((long) i * 7919 % cartSize)).toUpperCase();
+        }
+    }
+
+    @Benchmark
+    public Optional<CartItem> findItemByName() {
+        return cart.findItemByName(nextName());
+    }
+
+    @Benchmark
+    public Optional<CartItem> removeItemByName() {
+        final var removed = cart.removeItemByName(nextName());
+
+        removed.ifPresent(cart::addItem);
+
+        return removed;
+    }
+
+    private String nextName() {
+        return lookupNames[next++ & (lookupNames.length - 1)];
+    }
+}
@@ -0,0 +1,107 @@
+package griz.shop.server.domain;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Reproducible {@link Cart}s for benchmarks.
+ *
+ * @author nichollsmc
+ */
+public final class CartFixtures {
+
+    private static final long SEED = 0x5EED;
+
+    /**
+     * Distributions of item quantities, one per bulk discount tier plus a mix of all tiers.
+     */
+    public enum QuantityDistribution {
+        NO_DISCOUNT(1, 10),
+        TEN_PERCENT(11, 100),
+        FIFTEEN_PERCENT(101, 1000),
+        TWENTY_FIVE_PERCENT(1001, CartItem.ITEM_MAX_QUANTITY),
+        MIXED(1, 0);
+
+        private final long origin;
+        private final long bound;
+
+        QuantityDistribution(final long origin, final long bound) {
+            this.origin = origin;
+            this.bound  = bound;
+        }
+
+        BigInteger next(final SplittableRandom random) {
+            if (this == MIXED) {
+                final var tiers = values();
+                return tiers[random.nextInt(tiers.length - 1)].next(random);
+            }
+
+            return BigInteger.valueOf(random.nextLong(origin, bound + 1));
+        }
+    }
+
+    private CartFixtures() {
+    }
+
+    /**
+     * Creates a {@link Cart} with the provided number of items.
+     *
+     * @param size the number of items
+     * @param distribution the {@link QuantityDistribution} of the item quantities
+     * @return the {@code Cart}
+     */
+    public static Cart cart(final int size, final QuantityDistribution distribution) {
+        final var random = new SplittableRandom(SEED);
+        final var cart   = new Cart();
+
+        for (int i = 0; i < size; i++) {
+            cart.addItem(item(i, random, distribution));
+        }
+
+        return cart;
+    }
+
+    /**
+     * Creates a {@link Cart} with the provided number of items, each priced with the provided function.
+     *
+     * @param size the number of items
+     * @param distribution the {@link QuantityDistribution} of the item quantities
+     * @param pricing the {@link Function} producing the {@link ReceiptItem} for each item
+     * @return the priced {@code Cart}
+     */
+    public static Cart pricedCart(final int size,
+                                  final QuantityDistribution distribution,
+                                  final Function<CartItem, ReceiptItem> pricing) {
+        final var random = new SplittableRandom(SEED);
+        final var cart   = new Cart();
+
+        for (int i = 0; i < size; i++) {
+            final var item = item(i, random, distribution);
+            cart.addItem(item, pricing.apply(item));
+        }
+
+        return cart;
+    }
+
+    /**
+     * Returns the name of the item at the provided index in a fixture {@link Cart}.
+     *
+     * @param index the index of the item
+     * @return the name of the item
+     */
+    public static String itemName(final int index) {
+        return "Item-" + index;
+    }
+
+    private static CartItem item(final int index,
+                                 final SplittableRandom random,
+                                 final QuantityDistribution distribution) {
+        return CartItem.builder()
+                .name(itemName(index))
+                .pricePerItem(BigDecimal.valueOf(random.nextLong(1, 1_000_000), 2))
+                .quantity(distribution.next(random))
+                .build();
+    }
+}
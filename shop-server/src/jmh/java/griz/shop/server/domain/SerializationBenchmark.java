@@ -0,0 +1,71 @@
+package griz.shop.server.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.INDENT_OUTPUT;
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+
+/**
+ * Jackson serialization of {@link Cart}s and {@link Receipt}s, configured as in {@code application.yml}.
+ *
+ * @author nichollsmc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    int cartSize;
+
+    @Param({"true", "false"})
+    boolean indentOutput;
+
+    private ObjectMapper objectMapper;
+    private Cart         cart;
+    private Receipt      receipt;
+
+    @Setup
+    public void setUp() {
+        objectMapper =
+            new ObjectMapper()
+                .configure(INDENT_OUTPUT, indentOutput)
+                .configure(WRITE_DATES_AS_TIMESTAMPS, false);
+
+        cart    = CartFixtures.pricedCart(cartSize, CartFixtures.QuantityDistribution.MIXED, item ->
+                      ReceiptItem.builder()
+                          .name(item.getName())
+                          .quantity(item.getQuantity())
+                          .totalPrice(item.getPricePerItem().multiply(new BigDecimal(item.getQuantity())))
+                          .build());
+        receipt = cart.toReceipt();
+    }
+
+    @Benchmark
+    public byte[] serializeCart() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cart);
+    }
+
+    @Benchmark
+    public byte[] serializeReceipt() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(receipt);
+    }
+}
@@ -0,0 +1,75 @@
+package griz.shop.server.domain;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.validation.validator.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ConstraintViolation;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean validation of {@link CartItem}s, as performed for the body of {@code PUT /cart}.
+ *
+ * @author nichollsmc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ValidationBenchmark {
+
+    private ApplicationContext applicationContext;
+    private Validator          validator;
+    private CartItem           validItem;
+    private CartItem           invalidItem;
+
+    @Setup
+    public void setUp() {
+        applicationContext = ApplicationContext.run();
+        validator          = applicationContext.getBean(Validator.class);
+
+        validItem =
+            CartItem.builder()
+                .name("coconut")
+                .pricePerItem(new BigDecimal("1.00"))
+                .quantity(BigInteger.valueOf(10_000))
+                .build();
+
+        invalidItem =
+            CartItem.builder()
+                .name(" ")
+                .pricePerItem(new BigDecimal("-1.00"))
+                .quantity(BigInteger.valueOf(CartItem.ITEM_MAX_QUANTITY).add(BigInteger.ONE))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<CartItem>> validateValidItem() {
+        return validator.validate(validItem);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<CartItem>> validateInvalidItem() {
+        return validator.validate(invalidItem);
+    }
+}
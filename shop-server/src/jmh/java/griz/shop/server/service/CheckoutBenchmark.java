@@ -0,0 +1,87 @@
+package griz.shop.server.service;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartFixtures;
+import griz.shop.server.domain.CartFixtures.QuantityDistribution;
+import griz.shop.server.domain.Receipt;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * {@link CheckoutService#checkout()} over cart sizes and quantity distributions that hit every discount tier.
+ *
+ * <p>{@code checkoutPriced} is the read of the totals kept by a priced cart. {@code checkoutFixedPoint} and
+ * {@code checkoutDecimal} price every item, using the fixed-point and the {@code BigDecimal} engine respectively.
+ *
+ * @author nichollsmc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CheckoutBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    int cartSize;
+
+    @Param
+    QuantityDistribution distribution;
+
+    private CheckoutExecutor          checkoutExecutor;
+    private CheckoutService           checkoutService;
+    private Function<Cart, Receipt>   checkout;
+    private Function<Cart, Receipt>   fixedPointCheckout;
+    private Function<Cart, Receipt>   decimalCheckout;
+    private Cart                      pricedCart;
+    private Cart                      unpricedCart;
+
+    @Setup
+    public void setUp() {
+        final var meterRegistry  = new SimpleMeterRegistry();
+        final var discountEngine = new DiscountEngine(null, "", meterRegistry);
+
+        checkoutExecutor   = new CheckoutExecutor(0, 2048, 32768, 1024, meterRegistry);
+        checkoutService    = new CheckoutService(checkoutExecutor, discountEngine, meterRegistry);
+        checkout           = checkoutService.checkout();
+        fixedPointCheckout = checkoutService.checkout(checkoutService.priceItem());
+        decimalCheckout    = checkoutService.checkout(checkoutService.priceItemDecimal());
+        pricedCart         = CartFixtures.pricedCart(cartSize, distribution, checkoutService.priceItem());
+        unpricedCart       = CartFixtures.cart(cartSize, distribution);
+    }
+
+    @TearDown
+    public void tearDown() {
+        checkoutExecutor.shutdown();
+    }
+
+    @Benchmark
+    public Receipt checkoutPriced() {
+        return checkout.apply(pricedCart);
+    }
+
+    @Benchmark
+    public Receipt checkoutFixedPoint() {
+        return fixedPointCheckout.apply(unpricedCart);
+    }
+
+    @Benchmark
+    public Receipt checkoutDecimal() {
+        return decimalCheckout.apply(unpricedCart);
+    }
+}
@@ -0,0 +1,75 @@
+package griz.shop.server.service;
+
+import griz.shop.server.domain.CartFixtures;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.ReceiptItem;
+import griz.shop.server.service.CheckoutExecutor.Strategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static griz.shop.server.domain.CartFixtures.QuantityDistribution.MIXED;
+
+/**
+ * Pricing of carts with each {@link CheckoutExecutor.Strategy} forced, from small to very large carts.
+ *
+ * <p>The sizes at which {@code BATCHED} and {@code PARALLEL} overtake {@code SEQUENTIAL} on the target hardware are
+ * the values for {@code shop.checkout.sequential-threshold} and {@code shop.checkout.parallel-threshold}.
+ *
+ * @author nichollsmc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CheckoutExecutorBenchmark {
+
+    @Param({"16", "256", "1024", "2048", "4096", "16384", "32768", "131072"})
+    int cartSize;
+
+    @Param
+    Strategy strategy;
+
+    private CheckoutExecutor                 checkoutExecutor;
+    private Function<CartItem, ReceiptItem>  pricing;
+    private Collection<CartItem>             items;
+
+    @Setup
+    public void setUp() {
+        final var sequentialThreshold = strategy == Strategy.BATCHED ? 1 : 0;
+        final var parallelThreshold   = strategy == Strategy.PARALLEL ? 1 : 0;
+        final var meterRegistry       = new SimpleMeterRegistry();
+        final var discountEngine      = new DiscountEngine(null, "", meterRegistry);
+
+        checkoutExecutor = new CheckoutExecutor(0, sequentialThreshold, parallelThreshold, 1024, meterRegistry);
+        pricing          = new CheckoutService(checkoutExecutor, discountEngine, meterRegistry).priceItem();
+        items            = CartFixtures.cart(cartSize, MIXED).getItems();
+    }
+
+    @TearDown
+    public void tearDown() {
+        checkoutExecutor.shutdown();
+    }
+
+    @Benchmark
+    public List<ReceiptItem> price() {
+        return checkoutExecutor.map(items, pricing);
+    }
+}
@@ -0,0 +1,109 @@
+package griz.shop.server.service;
+
+import griz.shop.server.domain.CartFixtures;
+import griz.shop.server.domain.CartFixtures.QuantityDistribution;
+import griz.shop.server.domain.CartItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discount lookup of the {@link DiscountEngine} against the hard-coded tier chain it replaced.
+ *
+ * <p>{@code chain} is the former if/else chain over {@link BigInteger} comparisons. {@code table} looks up the same
+ * tiers by binary search, and {@code tableWithItemTiers} additionally resolves the tiers of the item, with tiers
+ * configured for every other item of the cart.
+ *
+ * @author nichollsmc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DiscountEngineBenchmark {
+
+    private static final int        ITEMS               = 1024;
+    private static final BigInteger ONE_HUNDRED         = BigInteger.valueOf(100);
+    private static final BigInteger ONE_THOUSAND        = BigInteger.valueOf(1000);
+    private static final BigDecimal NONE                = new BigDecimal("0");
+    private static final BigDecimal TEN_PERCENT         = new BigDecimal("0.10");
+    private static final BigDecimal FIFTEEN_PERCENT     = new BigDecimal("0.15");
+    private static final BigDecimal TWENTY_FIVE_PERCENT = new BigDecimal("0.25");
+
+    @Param
+    QuantityDistribution distribution;
+
+    private CartItem[]     items;
+    private DiscountEngine discountEngine;
+    private DiscountEngine itemDiscountEngine;
+    private int            next;
+
+    @Setup
+    public void setUp() {
+        items              = CartFixtures.cart(ITEMS, distribution).getItems().toArray(CartItem[]::new);
+        discountEngine     = new DiscountEngine(null, "", new SimpleMeterRegistry());
+        itemDiscountEngine = new DiscountEngine(itemTiers(), "", new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public BigDecimal chain() {
+        return chain(nextItem().getQuantity());
+    }
+
+    @Benchmark
+    public Discount table() {
+        final var item = nextItem();
+
+        return discountEngine.discountFor(item.getName(), item.getQuantity());
+    }
+
+    @Benchmark
+    public Discount tableWithItemTiers() {
+        final var item = nextItem();
+
+        return itemDiscountEngine.discountFor(item.getName(), item.getQuantity());
+    }
+
+    private CartItem nextItem() {
+        return items[next++ & (ITEMS - 1)];
+    }
+
+    private static BigDecimal chain(final BigInteger quantity) {
+        if (quantity.compareTo(BigInteger.TEN) <= 0) {
+            return NONE;
+        } else if (quantity.compareTo(ONE_HUNDRED) <= 0) {
+            return TEN_PERCENT;
+        } else if (quantity.compareTo(ONE_THOUSAND) <= 0) {
+            return FIFTEEN_PERCENT;
+        }
+
+        return TWENTY_FIVE_PERCENT;
+    }
+
+    private static Map<String, String> itemTiers() {
+        final var tiers = new HashMap<String, String>();
+
+        for (int i = 0; i < ITEMS; i += 2) {
+            tiers.put(CartFixtures.itemName(i), "5:0.05, 50:0.12, 500:0.2, 5000:0.3");
+        }
+
+        return tiers;
+    }
+}
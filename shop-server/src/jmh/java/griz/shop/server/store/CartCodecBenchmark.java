@@ -0,0 +1,116 @@
+package griz.shop.server.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartFixtures;
+import griz.shop.server.domain.CartFixtures.QuantityDistribution;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.ReceiptItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of {@link Cart}s with the {@link CartCodec}, compared with Jackson JSON of the same carts.
+ *
+ * <p>The encoded sizes of both formats are printed once per trial, since JMH only reports time.
+ *
+ * @author nichollsmc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CartCodecBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    int cartSize;
+
+    @Param({"", "Item-0,Item-1,Item-2,Item-3,Item-4"})
+    String dictionary;
+
+    private CartCodec    cartCodec;
+    private ObjectMapper objectMapper;
+    private Cart         cart;
+    private CartItem     cartItem;
+    private ReceiptItem  receiptItem;
+    private byte[]       encodedCart;
+    private byte[]       encodedItem;
+    private byte[]       jsonCart;
+    private byte[]       jsonItem;
+
+    @Setup
+    public void setUp() throws IOException {
+        cartCodec    = new CartCodec(dictionary);
+        objectMapper = new ObjectMapper();
+        cart         = CartFixtures.pricedCart(cartSize, QuantityDistribution.MIXED, item ->
+                           ReceiptItem.builder()
+                               .name(item.getName())
+                               .quantity(item.getQuantity())
+                               .totalPrice(item.getPricePerItem().multiply(new BigDecimal(item.getQuantity())))
+                               .build());
+        cartItem     = cart.findItemByName(CartFixtures.itemName(0)).orElseThrow();
+        receiptItem  = cart.findReceiptItemByName(cartItem.getName()).orElseThrow();
+        encodedCart  = cartCodec.encode(cart);
+        encodedItem  = cartCodec.encodeItem(cartItem, receiptItem);
+        jsonCart     = objectMapper.writeValueAsBytes(cart);
+        jsonItem     = objectMapper.writeValueAsBytes(cartItem);
+
+        System.out.printf("%n[cartSize=%d] codec: %d B/cart, %d B/item; json: %d B/cart, %d B/item%n",
+                          cartSize, encodedCart.length, encodedItem.length, jsonCart.length, jsonItem.length);
+    }
+
+    @Benchmark
+    public byte[] encodeCart() {
+        return cartCodec.encode(cart);
+    }
+
+    @Benchmark
+    public Cart decodeCart() {
+        return cartCodec.decode(encodedCart);
+    }
+
+    @Benchmark
+    public byte[] encodeItem() {
+        return cartCodec.encodeItem(cartItem, receiptItem);
+    }
+
+    @Benchmark
+    public CartItem decodeItem() {
+        return cartCodec.decodeItem(encodedItem);
+    }
+
+    @Benchmark
+    public byte[] encodeCartJson() throws IOException {
+        return objectMapper.writeValueAsBytes(cart);
+    }
+
+    @Benchmark
+    public Cart decodeCartJson() throws IOException {
+        return objectMapper.readValue(jsonCart, Cart.class);
+    }
+
+    @Benchmark
+    public byte[] encodeItemJson() throws IOException {
+        return objectMapper.writeValueAsBytes(cartItem);
+    }
+
+    @Benchmark
+    public CartItem decodeItemJson() throws IOException {
+        return objectMapper.readValue(jsonItem, CartItem.class);
+    }
+}
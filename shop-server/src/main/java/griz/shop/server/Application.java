@@ -1,14 +1,50 @@
 package griz.shop.server;
 
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartBatchResult;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.CartOperation;
+import griz.shop.server.domain.CartOperationResult;
+import griz.shop.server.domain.Receipt;
+import griz.shop.server.domain.ReceiptItem;
+import griz.shop.server.domain.ReceiptTotal;
+import griz.shop.server.store.CartSessionSerializer;
+import io.micronaut.core.annotation.TypeHint;
 import io.micronaut.runtime.Micronaut;
 
+import static io.micronaut.core.annotation.TypeHint.AccessType.ALL_DECLARED_CONSTRUCTORS;
+import static io.micronaut.core.annotation.TypeHint.AccessType.ALL_DECLARED_FIELDS;
+import static io.micronaut.core.annotation.TypeHint.AccessType.ALL_PUBLIC_METHODS;
+
 /**
  * Entrypoint into the application.
  *
+ * <p>The {@link TypeHint} registers the types that are only accessed reflectively for a GraalVM native image: the
+ * domain classes mapped by Jackson, the session serializer that is configured by its class name and the Caffeine
+ * cache and node classes that Caffeine loads by name for the bounded caches of the server.
+ *
  * @author nichollsmc
  */
+@TypeHint(
+    value = {
+        Cart.class,
+        CartBatchResult.class,
+        CartItem.class,
+        CartOperation.class,
+        CartOperation.Type.class,
+        CartOperationResult.class,
+        Receipt.class,
+        ReceiptItem.class,
+        ReceiptTotal.class,
+        CartSessionSerializer.class
+    },
+    typeNames = {
+        "com.github.benmanes.caffeine.cache.SSMS",
+        "com.github.benmanes.caffeine.cache.PSMS"
+    },
+    accessType = {ALL_DECLARED_CONSTRUCTORS, ALL_DECLARED_FIELDS, ALL_PUBLIC_METHODS})
 public class Application {
     public static void main(String[] args) {
         Micronaut.run(Application.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package griz.shop.server.api;
+
+import griz.shop.server.store.CartConflictException;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.annotation.Produces;
+import io.micronaut.http.hateoas.JsonError;
+import io.micronaut.http.hateoas.Link;
+import io.micronaut.http.server.exceptions.ExceptionHandler;
+
+import javax.inject.Singleton;
+
+/**
+ * Responds with HTTP 409 - Conflict when a {@link CartConflictException} is thrown, such that the client can retry the
+ * request.
+ *
+ * @author nichollsmc
+ */
+@Produces
+@Singleton
+@Requires(classes = {CartConflictException.class, ExceptionHandler.class})
+public class CartConflictExceptionHandler implements ExceptionHandler<CartConflictException, HttpResponse<?>> {
+
+    @Override
+    public HttpResponse<?> handle(final HttpRequest request, final CartConflictException exception) {
+        final var errorResponse =
+            new JsonError(exception.getMessage())
+                .link(Link.SELF, Link.of(request.getUri()));
+
+        return HttpResponse.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+}
@@ -2,7 +2,13 @@ package griz.shop.server.api;
 
 import griz.shop.server.domain.Cart;
 import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.CartOperation;
+import griz.shop.server.service.CartBatchService;
 import griz.shop.server.service.CheckoutService;
+import griz.shop.server.store.CartStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Value;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.MutableHttpResponse;
@@ -10,50 +16,100 @@ import io.micronaut.http.annotation.*;
 import io.micronaut.http.hateoas.JsonError;
 import io.micronaut.http.hateoas.Link;
 import io.micronaut.session.Session;
+import io.reactivex.Flowable;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
-import java.math.BigInteger;
-import java.util.HashSet;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiFunction;
-import java.util.function.Function;
 
+import static griz.shop.server.api.ResponseCache.Response.CART;
+import static griz.shop.server.api.ResponseCache.Response.RECEIPT;
 import static griz.shop.server.domain.CartItem.FIELD_NAME_QUANTITY;
-import static griz.shop.server.domain.CartItem.ITEM_MAX_QUANTITY;
 import static io.micronaut.http.HttpResponse.badRequest;
-import static io.micronaut.http.HttpResponse.created;
 import static io.micronaut.http.MediaType.APPLICATION_JSON;
-import static java.lang.String.format;
 
 /**
  * Endpoint for simulating a shopping cart.
  *
- * <p>State management of {@link Cart}s is implemented via an embedded Redis datastore.
+ * <p>State management of {@link Cart}s is delegated to the configured {@link CartStore}, using the identifier of the
+ * HTTP {@link Session} as the identifier of the {@code Cart}. Operations on a single item only read and write the
+ * state of that item; the full {@code Cart} is only loaded for viewing its content or producing a receipt. Items are
+ * priced as they are added, so producing a receipt reads the totals kept by the {@code Cart}, and only prices the items
+ * whose quantity was updated since.
+ *
+ * <p>Adding, updating and removing a single item are each a single atomic operation of the {@code CartStore}, which
+ * validates the operation against the stored item. A batch of {@link CartOperation}s is applied by the
+ * {@link CartBatchService}.
+ *
+ * <p>Requests for a single item, to add, get, update or remove it, are timed under {@value #METRIC_ITEM_REQUESTS},
+ * tagged with the {@code api} serving them.
  *
  * @author nichollsmc
  */
 @Controller("/cart")
 public class CartOperations {
 
-    private static final String SESSSION_ATTRIBUTE_CART = "shop.cart";
+    /**
+     * Defines the name of the timer of requests for a single item of a {@link Cart}.
+     */
+    public static final String METRIC_ITEM_REQUESTS = "shop.cart.item.requests";
+
+    @Inject
+    CartStore cartStore;
 
     @Inject
     CheckoutService checkoutService;
 
+    @Inject
+    JsonLinesEncoder jsonLinesEncoder;
+
+    @Inject
+    ResponseCache responseCache;
+
+    @Value("${shop.cart.receipt.page-size:1000}")
+    int receiptPageSize;
+
+    @Inject
+    CartBatchService cartBatchService;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private Timer itemRequestTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        itemRequestTimer = meterRegistry.timer(METRIC_ITEM_REQUESTS, "api", "blocking");
+    }
+
     /**
      * Return the current content of the {@link Cart}.
      *
+     * <p>The content is served from the {@link ResponseCache} while the version of the {@code Cart} is unchanged.
+     *
      * @param session the {@link Session} used for managing the state of a {@code Cart}
      * @return the contents of the {@code Cart}
      */
     @Get(produces = APPLICATION_JSON)
     public HttpResponse<?> viewCart(final Session session) {
-        return findCart()
-                .andThen(HttpResponse::ok)
-                .apply(session);
+        final var cartId = session.getId();
+
+        final var content =
+            responseCache.find(cartId, cartStore.findVersion(cartId), CART)
+                .orElseGet(() -> {
+                    final var cart = cartStore.findCart(cartId);
+
+                    return responseCache.put(cartId, cart, CART, () -> cart);
+                });
+
+        return HttpResponse.ok(content);
     }
 
     /**
@@ -62,27 +118,26 @@ public class CartOperations {
      * @param httpRequest the {@link HttpRequest} object
      * @param session the {@link Session} used for managing the state of a {@code Cart}
      * @param cartItem the {@code CartItem} to add to the {@code Cart}
-     * @return a JSON document representing the updated {@code Cart} content
+     * @return a JSON document representing the added {@code CartItem}
      */
     @Put(consumes = APPLICATION_JSON, produces = APPLICATION_JSON)
     public HttpResponse<?> addItem(final HttpRequest<?> httpRequest,
                                    final Session session,
                                    @Body @Valid final CartItem cartItem) {
-        return handleRequestForCartItem((cart, existingCartItem) -> {
-            if (existingCartItem.isPresent()) {
-                final var errorResponse =
-                    new JsonError(format("Item '%s' already exists in cart.", cartItem.getName()))
-                        .link(Link.SELF, Link.of(httpRequest.getUri()));
-
-                return badRequest(errorResponse);
-            }
+        return itemRequestTimer.record(() -> {
+            final var receiptItem = checkoutService.priceItem().apply(cartItem);
 
-            cart.getItems().add(cartItem);
-            session.put(SESSSION_ATTRIBUTE_CART, cart);
+            return Optional.of(cartItem)
+                    .filter(ci -> cartStore.addItem(session.getId(), ci, receiptItem))
+                    .<MutableHttpResponse<?>>map(HttpResponse::created)
+                    .orElseGet(() -> {
+                        final var errorResponse =
+                            new JsonError(CartBatchService.duplicateItemMessage(cartItem.getName()))
+                                .link(Link.SELF, Link.of(httpRequest.getUri()));
 
-            return created(cart);
-        })
-        .apply(session, cartItem.getName());
+                        return badRequest(errorResponse);
+                    });
+        });
     }
 
     /**
@@ -94,7 +149,7 @@ public class CartOperations {
      */
     @Get(value = "{name}", produces = APPLICATION_JSON)
     public HttpResponse<?> getItem(final Session session, @NotBlank final String name) {
-        return handleRequestForCartItem((cart, existingCartItem) ->
+        return handleRequestForCartItem((cartId, existingCartItem) ->
             existingCartItem
                 .map(HttpResponse::ok)
                 .orElseGet(HttpResponse::notFound))
@@ -107,31 +162,40 @@ public class CartOperations {
      * @param session the {@link Session} used for managing the state of a {@code Cart}
      * @param name the path parameter representing the name of an item in the {@code Cart}
      * @param quantity the new quantity for an item in the {@code Cart} provided in the request body
-     * @return a JSON document representing the updated {@code Cart} content
+     * @return a JSON document representing the updated {@code CartItem}, otherwise an HTTP 404 - Not found response
      */
     @Post(value = "{name}", consumes = APPLICATION_JSON, produces = APPLICATION_JSON)
     public HttpResponse<?> updateItemQuantity(final Session session,
                                               @NotBlank final String name,
                                               @Body final Map<String, Long> quantity) {
-        return handleRequestForCartItem((cart, existingCartItem) -> {
-            existingCartItem.ifPresent(eci ->
-                Optional.ofNullable(quantity)
-                    .flatMap(qmap ->
-                        Optional.ofNullable(qmap.get(FIELD_NAME_QUANTITY))
-                                .filter(q -> q >= 0 && q <= ITEM_MAX_QUANTITY))
-                    .ifPresent(q -> {
-                        if (q == 0) {
-                            removeItem(session, name);
-                            return;
-                        }
-
-                        eci.setQuantity(BigInteger.valueOf(q));
-                        session.put(SESSSION_ATTRIBUTE_CART, cart);
-                    }));
-
-            return created(cart);
-        })
-        .apply(session, name);
+        final var cartId = session.getId();
+
+        return itemRequestTimer.record(() ->
+            Optional.ofNullable(quantity)
+                .flatMap(qmap -> Optional.ofNullable(qmap.get(FIELD_NAME_QUANTITY)))
+                .map(q -> cartStore.updateItemQuantity(cartId, name, q))
+                .orElseGet(() -> cartStore.findItem(cartId, name))
+                .<MutableHttpResponse<?>>map(HttpResponse::created)
+                .orElseGet(HttpResponse::notFound));
+    }
+
+    /**
+     * Applies a batch of add, update and remove operations to the {@link Cart}, in order.
+     *
+     * <p>Each operation follows the rules of the equivalent single-item operation: adding an item that already exists
+     * is rejected, updating or removing an item that does not exist is not found, and an update to a quantity of zero
+     * removes the item. Unlike the single-item update, an update to a quantity out of bounds is rejected. Operations
+     * that are rejected do not affect the {@code Cart}; all others are saved together.
+     *
+     * @param session the {@link Session} used for managing the state of a {@code Cart}
+     * @param operations the {@link CartOperation}s to apply
+     * @return a JSON document representing the resulting {@code Cart} and the outcome of each operation
+     */
+    @Patch(consumes = APPLICATION_JSON, produces = APPLICATION_JSON)
+    public HttpResponse<?> applyOperations(final Session session,
+                                           @Body @NotEmpty @Size(max = CartOperation.MAX_BATCH_SIZE)
+                                           final List<CartOperation> operations) {
+        return HttpResponse.ok(cartBatchService.apply(session.getId(), operations));
     }
 
     /**
@@ -139,18 +203,14 @@ public class CartOperations {
      *
      * @param session the {@link Session} used for managing the state of a {@code Cart}
      * @param name the path parameter representing the name of an item in the {@code Cart}
-     * @return a JSON document representing the updated {@code Cart} content
+     * @return a JSON document representing the removed {@code CartItem}, otherwise an HTTP 404 - Not found response
      */
     @Delete(value = "{name}", produces = APPLICATION_JSON)
     public HttpResponse<?> removeItem(final Session session, @NotBlank final String name) {
-        return handleRequestForCartItem((cart, existingCartItem) -> {
-            existingCartItem
-                .flatMap(eci -> cart.removeItemByName(name))
-                .ifPresent(eci ->  session.put(SESSSION_ATTRIBUTE_CART, cart));
-
-            return created(cart);
-        })
-        .apply(session, name);
+        return itemRequestTimer.record(() ->
+            cartStore.removeItem(session.getId(), name)
+                .<MutableHttpResponse<?>>map(HttpResponse::created)
+                .orElseGet(HttpResponse::notFound));
     }
 
     /**
@@ -161,36 +221,55 @@ public class CartOperations {
     @Delete("/clear")
     public void clearCart(final Session session) {
         Optional.ofNullable(session)
-            .ifPresent(s -> s.remove(SESSSION_ATTRIBUTE_CART));
+            .ifPresent(s -> cartStore.clear(s.getId()));
     }
 
     /**
      * Calculates the total (including discounts) of the {@link Cart} and returns a JSON document representing the
      * {@link griz.shop.server.domain.Receipt}.
      *
+     * <p>The receipt is served from the {@link ResponseCache} while the version of the {@code Cart} is unchanged.
+     *
      * @param session the {@link Session} used for managing the state of a {@code Cart}
      * @return the receipt for the {@code Cart} content
      */
     @Get(value = "/receipt", produces = APPLICATION_JSON)
     public HttpResponse<?> receipt(final Session session) {
-        return findCart()
-                .andThen(checkoutService.checkout())
-                .andThen(HttpResponse::ok)
-                .apply(session);
+        final var cartId = session.getId();
+
+        final var receipt =
+            responseCache.find(cartId, cartStore.findVersion(cartId), RECEIPT)
+                .orElseGet(() -> {
+                    final var cart = cartStore.findCart(cartId);
+
+                    return responseCache.put(cartId, cart, RECEIPT, () -> checkoutService.checkout().apply(cart));
+                });
+
+        return HttpResponse.ok(receipt);
     }
 
-    private BiFunction<Session, String, HttpResponse<?>>
-        handleRequestForCartItem(final BiFunction<Cart, Optional<CartItem>, MutableHttpResponse<?>> cartHandler) {
-            return (session, cartItemName) ->
-                findCart()
-                    .andThen(cart -> cartHandler.apply(cart, cart.findItemByName(cartItemName)))
-                    .apply(session);
+    /**
+     * Streams the {@link griz.shop.server.domain.Receipt} of the {@link Cart} as newline-delimited JSON.
+     *
+     * <p>The {@code Cart} is read and priced a page at a time, and every
+     * {@link griz.shop.server.domain.ReceiptItem} is written on its own line as soon as its page has been priced. The
+     * last line is the {@link griz.shop.server.domain.ReceiptTotal}. The memory used by a request is bounded by the
+     * page size {@code shop.cart.receipt.page-size}, regardless of the size of the {@code Cart}.
+     *
+     * @param session the {@link Session} used for managing the state of a {@code Cart}
+     * @return the chunks of the receipt for the {@code Cart} content
+     */
+    @Get(value = "/receipt/stream", produces = JsonLinesEncoder.MEDIA_TYPE)
+    public Flowable<byte[]> streamReceipt(final Session session) {
+        return jsonLinesEncoder.encode(
+                checkoutService.streamingCheckout()
+                    .apply(cartStore.reactive().streamCart(session.getId(), receiptPageSize)));
     }
 
-    private Function<Session, Cart> findCart() {
-        return session ->
-            Optional.ofNullable(session)
-                .flatMap(s -> s.get(SESSSION_ATTRIBUTE_CART, Cart.class))
-                .orElse(Cart.builder().items(new HashSet<>()).build());
+    private BiFunction<Session, String, HttpResponse<?>>
+        handleRequestForCartItem(final BiFunction<String, Optional<CartItem>, MutableHttpResponse<?>> cartItemHandler) {
+            return (session, cartItemName) ->
+                itemRequestTimer.record(() ->
+                    cartItemHandler.apply(session.getId(), cartStore.findItem(session.getId(), cartItemName)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,447 @@
+package griz.shop.server.api;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartBatchResult;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.CartOperation;
+import griz.shop.server.domain.CartOperationResult;
+import griz.shop.server.domain.Receipt;
+import griz.shop.server.domain.ReceiptItem;
+import griz.shop.server.domain.ReceiptTotal;
+import griz.shop.server.grpc.CartProto;
+import griz.shop.server.grpc.CartServiceGrpc;
+import griz.shop.server.service.CartBatchService;
+import griz.shop.server.service.CheckoutService;
+import griz.shop.server.store.CartConflictException;
+import griz.shop.server.store.CartStore;
+import griz.shop.server.store.RedisHashCartStore;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpStatus;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableSubscriber;
+import org.reactivestreams.Subscription;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * gRPC variant of the {@link CartOperations} endpoint, defined by {@code src/main/proto/cart.proto}.
+ *
+ * <p>Provides the same operations on the same {@link CartStore}, {@link CheckoutService} and
+ * {@link CartBatchService}, with protobuf messages mirroring the domain. Since gRPC has no HTTP session, every request
+ * names its {@link Cart} by an explicit identifier, and the service is only available with the
+ * {@value RedisHashCartStore#MODE} store, whose carts are not bound to a session. Carts named by a request are
+ * {@link CartStore#clientCartId(String) kept apart} from the carts of HTTP sessions.
+ *
+ * <p>Outcomes that the Web API reports with an HTTP status are reported with the corresponding gRPC status:
+ * {@code INVALID_ARGUMENT} for a rejected request, {@code NOT_FOUND} for a missing item and {@code ABORTED} for an
+ * update that kept conflicting with concurrent writes. {@code AddItems} adds a client stream of items to one
+ * {@code Cart}, and reports the outcome of every item like a batch of {@link CartOperation}s. {@code StreamReceipt}
+ * streams the receipt as {@link CartOperations#streamReceipt} does, and requests further pages of the {@code Cart}
+ * only while the client is ready to receive.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+@Requires(property = CartStore.PROPERTY_MODE, value = RedisHashCartStore.MODE, defaultValue = RedisHashCartStore.MODE)
+public class GrpcCartOperations extends CartServiceGrpc.CartServiceImplBase {
+
+    @Inject
+    CartStore cartStore;
+
+    @Inject
+    CheckoutService checkoutService;
+
+    @Inject
+    CartBatchService cartBatchService;
+
+    @Value("${shop.cart.receipt.page-size:1000}")
+    int receiptPageSize;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private Timer itemRequestTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        itemRequestTimer = meterRegistry.timer(CartOperations.METRIC_ITEM_REQUESTS, "api", "grpc");
+    }
+
+    @Override
+    public void getCart(final CartProto.CartRequest request, final StreamObserver<CartProto.Cart> observer) {
+        respond(observer, () -> toMessage(cartStore.findCart(cartIdOf(request.getCartId()))));
+    }
+
+    @Override
+    public void addItem(final CartProto.AddItemRequest request, final StreamObserver<CartProto.CartItem> observer) {
+        respond(observer, () -> itemRequestTimer.record(() -> {
+            final var result = addItem(cartIdOf(request.getCartId()), request.getItem());
+
+            if (result.getStatus() != HttpStatus.CREATED.getCode()) {
+                throw Status.INVALID_ARGUMENT.withDescription(result.getMessage()).asRuntimeException();
+            }
+
+            return toMessage(result.getItem());
+        }));
+    }
+
+    @Override
+    public StreamObserver<CartProto.AddItemRequest> addItems(final StreamObserver<CartProto.BatchResult> observer) {
+        return new StreamObserver<>() {
+
+            private final List<CartOperationResult> results = new ArrayList<>();
+
+            private String  cartId;
+            private boolean failed;
+
+            @Override
+            public void onNext(final CartProto.AddItemRequest request) {
+                if (failed) {
+                    return;
+                }
+
+                try {
+                    if (cartId == null) {
+                        cartId = cartIdOf(request.getCartId());
+                    }
+
+                    results.add(addItem(cartId, request.getItem()));
+                } catch (RuntimeException e) {
+                    failed = true;
+                    observer.onError(statusOf(e));
+                }
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+                failed = true;
+            }
+
+            @Override
+            public void onCompleted() {
+                if (failed) {
+                    return;
+                }
+
+                respond(observer, () ->
+                    toMessage(CartBatchResult.builder()
+                                  .cart(cartId == null ? new Cart() : cartStore.findCart(cartId))
+                                  .results(results)
+                                  .build()));
+            }
+        };
+    }
+
+    @Override
+    public void getItem(final CartProto.ItemRequest request, final StreamObserver<CartProto.CartItem> observer) {
+        respond(observer, () ->
+            itemRequestTimer.record(() ->
+                cartStore.findItem(cartIdOf(request.getCartId()), request.getName())
+                    .map(GrpcCartOperations::toMessage)
+                    .orElseThrow(() -> notFound(request.getName()))));
+    }
+
+    @Override
+    public void updateItemQuantity(final CartProto.UpdateItemQuantityRequest request,
+                                   final StreamObserver<CartProto.CartItem> observer) {
+        respond(observer, () ->
+            itemRequestTimer.record(() ->
+                cartStore.updateItemQuantity(cartIdOf(request.getCartId()), request.getName(), request.getQuantity())
+                    .map(GrpcCartOperations::toMessage)
+                    .orElseThrow(() -> notFound(request.getName()))));
+    }
+
+    @Override
+    public void applyOperations(final CartProto.ApplyOperationsRequest request,
+                                final StreamObserver<CartProto.BatchResult> observer) {
+        respond(observer, () -> {
+            final var cartId = cartIdOf(request.getCartId());
+
+            if (request.getOperationsCount() == 0 || request.getOperationsCount() > CartOperation.MAX_BATCH_SIZE) {
+                throw Status.INVALID_ARGUMENT
+                        .withDescription(format("A batch must have between 1 and %d operations.",
+                                                CartOperation.MAX_BATCH_SIZE))
+                        .asRuntimeException();
+            }
+
+            final var operations =
+                request.getOperationsList().stream()
+                    .map(GrpcCartOperations::toOperation)
+                    .collect(toList());
+
+            return toMessage(cartBatchService.apply(cartId, operations));
+        });
+    }
+
+    @Override
+    public void removeItem(final CartProto.ItemRequest request, final StreamObserver<CartProto.CartItem> observer) {
+        respond(observer, () ->
+            itemRequestTimer.record(() ->
+                cartStore.removeItem(cartIdOf(request.getCartId()), request.getName())
+                    .map(GrpcCartOperations::toMessage)
+                    .orElseThrow(() -> notFound(request.getName()))));
+    }
+
+    @Override
+    public void clearCart(final CartProto.CartRequest request,
+                          final StreamObserver<CartProto.ClearCartResponse> observer) {
+        respond(observer, () -> {
+            cartStore.clear(cartIdOf(request.getCartId()));
+
+            return CartProto.ClearCartResponse.getDefaultInstance();
+        });
+    }
+
+    @Override
+    public void getReceipt(final CartProto.CartRequest request, final StreamObserver<CartProto.Receipt> observer) {
+        respond(observer, () ->
+            toMessage(checkoutService.checkout().apply(cartStore.findCart(cartIdOf(request.getCartId())))));
+    }
+
+    @Override
+    public void streamReceipt(final CartProto.CartRequest request,
+                              final StreamObserver<CartProto.ReceiptLine> observer) {
+        final String cartId;
+
+        try {
+            cartId = cartIdOf(request.getCartId());
+        } catch (StatusRuntimeException e) {
+            observer.onError(e);
+            return;
+        }
+
+        stream(checkoutService.streamingCheckout()
+                   .apply(cartStore.reactive().streamCart(cartId, receiptPageSize))
+                   .map(GrpcCartOperations::toLine),
+               (ServerCallStreamObserver<CartProto.ReceiptLine>) observer);
+    }
+
+    private CartOperationResult addItem(final String cartId, final CartProto.CartItem message) {
+        final var result = CartOperationResult.builder().op(CartOperation.Type.ADD).name(message.getName());
+        final BigDecimal pricePerItem;
+
+        try {
+            pricePerItem = decimalOf(message.getPricePerItem());
+        } catch (StatusRuntimeException e) {
+            return result.status(HttpStatus.BAD_REQUEST.getCode()).message(e.getStatus().getDescription()).build();
+        }
+
+        final var cartItem =
+            CartItem.builder()
+                .name(message.getName())
+                .quantity(BigInteger.valueOf(message.getQuantity()))
+                .pricePerItem(pricePerItem)
+                .build();
+
+        return cartBatchService.violationsOf(cartItem)
+                .or(() ->
+                    Optional.of(cartItem)
+                        .filter(ci -> !cartStore.addItem(cartId, ci, checkoutService.priceItem().apply(ci)))
+                        .map(ci -> CartBatchService.duplicateItemMessage(ci.getName())))
+                .map(error -> result.status(HttpStatus.BAD_REQUEST.getCode()).message(error))
+                .orElseGet(() -> result.status(HttpStatus.CREATED.getCode()).item(cartItem))
+                .build();
+    }
+
+    /*
+     * Items of the receipt are only requested from the cart while the transport can take them, so a slow client does
+     * not make the server buffer the receipt. Items are emitted one at a time, and the ready handler resumes the
+     * stream once the transport drains.
+     */
+    private static <T> void stream(final Flowable<T> items, final ServerCallStreamObserver<T> observer) {
+        items.subscribe(new FlowableSubscriber<T>() {
+
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(final Subscription s) {
+                subscription = s;
+                observer.setOnCancelHandler(s::cancel);
+                observer.setOnReadyHandler(() -> {
+                    if (observer.isReady()) {
+                        s.request(1);
+                    }
+                });
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(final T item) {
+                observer.onNext(item);
+
+                if (observer.isReady()) {
+                    subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+                observer.onError(statusOf(t));
+            }
+
+            @Override
+            public void onComplete() {
+                observer.onCompleted();
+            }
+        });
+    }
+
+    private static <T> void respond(final StreamObserver<T> observer, final Supplier<T> response) {
+        final T value;
+
+        try {
+            value = response.get();
+        } catch (RuntimeException e) {
+            observer.onError(statusOf(e));
+            return;
+        }
+
+        observer.onNext(value);
+        observer.onCompleted();
+    }
+
+    private static StatusRuntimeException statusOf(final Throwable t) {
+        if (t instanceof StatusRuntimeException) {
+            return (StatusRuntimeException) t;
+        }
+
+        if (t instanceof CartConflictException) {
+            return Status.ABORTED.withDescription(t.getMessage()).asRuntimeException();
+        }
+
+        return Status.INTERNAL.withDescription(t.getMessage()).withCause(t).asRuntimeException();
+    }
+
+    private static StatusRuntimeException notFound(final String name) {
+        return Status.NOT_FOUND.withDescription(format("Item '%s' not found in cart.", name)).asRuntimeException();
+    }
+
+    private static String cartIdOf(final String cartId) {
+        if (cartId.isBlank()) {
+            throw Status.INVALID_ARGUMENT.withDescription("cart_id must not be blank.").asRuntimeException();
+        }
+
+        return CartStore.clientCartId(cartId);
+    }
+
+    private static BigDecimal decimalOf(final String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw Status.INVALID_ARGUMENT
+                    .withDescription(format("Expected a decimal number: '%s'.", value))
+                    .asRuntimeException();
+        }
+    }
+
+    private static String decimalText(final BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    private static CartOperation.Type typeOf(final CartProto.CartOperation.Type type) {
+        switch (type) {
+            case ADD:
+                return CartOperation.Type.ADD;
+            case UPDATE:
+                return CartOperation.Type.UPDATE;
+            case REMOVE:
+                return CartOperation.Type.REMOVE;
+            default:
+                throw Status.INVALID_ARGUMENT.withDescription("Unknown operation: " + type).asRuntimeException();
+        }
+    }
+
+    private static CartOperation toOperation(final CartProto.CartOperation message) {
+        return CartOperation.builder()
+                .op(typeOf(message.getOp()))
+                .name(message.getName())
+                .pricePerItem(decimalOf(message.getPricePerItem()))
+                .quantity(message.getQuantityValueCase() == CartProto.CartOperation.QuantityValueCase.QUANTITY
+                              ? message.getQuantity()
+                              : null)
+                .build();
+    }
+
+    private static CartProto.Cart toMessage(final Cart cart) {
+        return CartProto.Cart.newBuilder()
+                .addAllItems(cart.getItems().stream().map(GrpcCartOperations::toMessage).collect(toList()))
+                .build();
+    }
+
+    private static CartProto.CartItem toMessage(final CartItem cartItem) {
+        return CartProto.CartItem.newBuilder()
+                .setName(cartItem.getName())
+                .setQuantity(cartItem.getQuantity().longValueExact())
+                .setPricePerItem(decimalText(cartItem.getPricePerItem()))
+                .build();
+    }
+
+    private static CartProto.ReceiptItem toMessage(final ReceiptItem receiptItem) {
+        return CartProto.ReceiptItem.newBuilder()
+                .setName(receiptItem.getName())
+                .setQuantity(receiptItem.getQuantity().longValueExact())
+                .setTotalPrice(decimalText(receiptItem.getTotalPrice()))
+                .build();
+    }
+
+    private static CartProto.Receipt toMessage(final Receipt receipt) {
+        return CartProto.Receipt.newBuilder()
+                .addAllItems(receipt.getItems().stream().map(GrpcCartOperations::toMessage).collect(toList()))
+                .setTotalPrice(decimalText(receipt.getTotalPrice()))
+                .build();
+    }
+
+    private static CartProto.BatchResult toMessage(final CartBatchResult batchResult) {
+        final var message = CartProto.BatchResult.newBuilder().setCart(toMessage(batchResult.getCart()));
+
+        for (final var result : batchResult.getResults()) {
+            final var resultMessage =
+                CartProto.CartOperationResult.newBuilder()
+                    .setOp(CartProto.CartOperation.Type.valueOf(result.getOp().name()))
+                    .setName(Optional.ofNullable(result.getName()).orElse(""))
+                    .setStatus(result.getStatus())
+                    .setMessage(Optional.ofNullable(result.getMessage()).orElse(""));
+
+            Optional.ofNullable(result.getItem()).map(GrpcCartOperations::toMessage).ifPresent(resultMessage::setItem);
+            message.addResults(resultMessage);
+        }
+
+        return message.build();
+    }
+
+    private static CartProto.ReceiptLine toLine(final Object line) {
+        if (line instanceof ReceiptTotal) {
+            final var total = (ReceiptTotal) line;
+
+            return CartProto.ReceiptLine.newBuilder()
+                    .setTotal(CartProto.ReceiptTotal.newBuilder()
+                                  .setItemCount(total.getItemCount())
+                                  .setTotalPrice(decimalText(total.getTotalPrice())))
+                    .build();
+        }
+
+        return CartProto.ReceiptLine.newBuilder().setItem(toMessage((ReceiptItem) line)).build();
+    }
+}
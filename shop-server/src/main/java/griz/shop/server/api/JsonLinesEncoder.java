@@ -0,0 +1,62 @@
+package griz.shop.server.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.reactivex.Flowable;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Encodes a stream of objects as newline-delimited JSON, for writing as the chunks of a chunked HTTP response.
+ *
+ * <p>Every object is written on a single line regardless of {@code jackson.serialization.indentOutput}, and lines are
+ * grouped into chunks of up to {@value #LINES_PER_CHUNK} lines, so that a long stream is neither held in memory nor
+ * written a line at a time.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+public class JsonLinesEncoder {
+
+    /**
+     * Defines the media type of newline-delimited JSON.
+     */
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final int LINES_PER_CHUNK = 256;
+
+    private final ObjectWriter objectWriter;
+
+    @Inject
+    public JsonLinesEncoder(final ObjectMapper objectMapper) {
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Encodes the objects as newline-delimited JSON.
+     *
+     * @param objects the objects to encode
+     * @return a {@link Flowable} emitting the chunks of the encoding
+     */
+    public Flowable<byte[]> encode(final Flowable<?> objects) {
+        return objects
+                .buffer(LINES_PER_CHUNK)
+                .map(this::encodeChunk);
+    }
+
+    private byte[] encodeChunk(final List<?> objects) throws IOException {
+        final var chunk = new ByteArrayOutputStream();
+
+        for (final var object : objects) {
+            chunk.write(objectWriter.writeValueAsBytes(object));
+            chunk.write('\n');
+        }
+
+        return chunk.toByteArray();
+    }
+}
@@ -0,0 +1,219 @@
+package griz.shop.server.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartBatchResult;
+import griz.shop.server.domain.CartOperation;
+import griz.shop.server.domain.CartOperationResult;
+import griz.shop.server.domain.ReceiptTotal;
+import griz.shop.server.service.CartBatchService;
+import griz.shop.server.service.CheckoutService;
+import griz.shop.server.store.CartConflictException;
+import griz.shop.server.store.CartStore;
+import griz.shop.server.store.RedisHashCartStore;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.runtime.server.event.ServerStartupEvent;
+import io.micronaut.scheduling.TaskExecutors;
+import io.netty.buffer.ByteBufUtil;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.SocketAcceptor;
+import io.rsocket.core.RSocketServer;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import io.rsocket.util.DefaultPayload;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * RSocket variant of the {@link CartOperations} endpoint, for clients that keep one long-lived connection and send
+ * many mutations to a {@link Cart}.
+ *
+ * <p>A client opens a request-channel per {@code Cart}, naming the {@code Cart} in the metadata of the first payload,
+ * and streams {@link CartOperation}s in as JSON, one per payload. Every operation is applied as a batch of one by the
+ * {@link CartBatchService}, and answered with its {@link CartOperationResult}, the delta of the {@code Cart}, followed
+ * by the {@link ReceiptTotal} of the {@code Cart} if the operation changed it. Operations are applied in order, and
+ * only as fast as the client consumes the answers: the next operation is requested from the client once the answers
+ * to the previous one have been requested by it. An operation that fails is answered with a
+ * {@code CartOperationResult} of status {@code 409} if it kept conflicting with concurrent writes, or {@code 500}
+ * otherwise, and the channel carries on with the next operation.
+ *
+ * <p>As for the {@link GrpcCartOperations}, there is no HTTP session, so the endpoint is only available with the
+ * {@value RedisHashCartStore#MODE} store, and {@code Cart}s are named as for gRPC, by
+ * {@link CartStore#clientCartId(String) client cart identifiers}. The server listens on {@code shop.rsocket.port} over
+ * TCP, unless disabled with {@value #PROPERTY_ENABLED}.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+@Requires(property = CartStore.PROPERTY_MODE, value = RedisHashCartStore.MODE, defaultValue = RedisHashCartStore.MODE)
+@Requires(property = RSocketCartOperations.PROPERTY_ENABLED, notEquals = "false")
+public class RSocketCartOperations implements RSocket, ApplicationEventListener<ServerStartupEvent> {
+
+    /**
+     * Defines the property used for disabling the RSocket endpoint, which is enabled unless set to {@code false}.
+     */
+    public static final String PROPERTY_ENABLED = "shop.rsocket.enabled";
+
+    private static final Logger LOG = LoggerFactory.getLogger(RSocketCartOperations.class);
+
+    private final CartBatchService cartBatchService;
+    private final CheckoutService  checkoutService;
+    private final ObjectReader     operationReader;
+    private final ObjectWriter     objectWriter;
+    private final Scheduler        scheduler;
+    private final int              port;
+
+    private CloseableChannel server;
+
+    @Inject
+    public RSocketCartOperations(final CartBatchService cartBatchService,
+                                 final CheckoutService checkoutService,
+                                 final ObjectMapper objectMapper,
+                                 @Named(TaskExecutors.IO) final ExecutorService ioExecutor,
+                                 @Value("${shop.rsocket.port:7000}") final int port) {
+        this.cartBatchService = cartBatchService;
+        this.checkoutService  = checkoutService;
+        this.operationReader  = objectMapper.readerFor(CartOperation.class);
+        this.objectWriter     = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.scheduler        = Schedulers.from(ioExecutor);
+        this.port             = port;
+    }
+
+    @Override
+    public void onApplicationEvent(final ServerStartupEvent event) {
+        server = RSocketServer.create(SocketAcceptor.with(this))
+                    .bind(TcpServerTransport.create(port))
+                    .block();
+
+        LOG.info("RSocket cart endpoint listening on {}", server.address());
+    }
+
+    /*
+     * The address the server is bound to, which differs from the configured port when that is 0.
+     */
+    InetSocketAddress address() {
+        return server.address();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        Optional.ofNullable(server).ifPresent(CloseableChannel::dispose);
+    }
+
+    @Override
+    public Flux<Payload> requestChannel(final Publisher<Payload> payloads) {
+        return Flux.from(payloads)
+                .switchOnFirst((first, frames) -> {
+                    if (!first.hasValue()) {
+                        return first.hasError() ? Flux.<Payload>error(first.getThrowable()) : Flux.<Payload>empty();
+                    }
+
+                    return Optional.of(first.get())
+                            .filter(Payload::hasMetadata)
+                            .map(Payload::getMetadataUtf8)
+                            .filter(cartId -> !cartId.isBlank())
+                            .map(CartStore::clientCartId)
+                            .map(cartId -> Flux.from(channel(cartId, Flowable.fromPublisher(frames))))
+                            .orElseGet(() ->
+                                Flux.error(new IllegalArgumentException(
+                                    "The metadata of the first payload must name the cart.")));
+                });
+    }
+
+    /*
+     * Operations are applied one at a time on the IO executor, since the cart store blocks. Unlike concatMap, which
+     * requests the next operation as soon as it starts applying one, a flatMap of one concurrent operation only
+     * requests the next operation once the answers to the current one have been emitted, so the client never sends
+     * operations ahead of the answers it has requested.
+     */
+    private Flowable<Payload> channel(final String cartId, final Flowable<Payload> frames) {
+        return frames
+                .flatMap(frame -> decode(frame)
+                                      .map(operation -> apply(cartId, operation))
+                                      .orElseGet(() -> Flowable.<Object>just(malformed())),
+                         false,
+                         1)
+                .map(answer -> DefaultPayload.create(objectWriter.writeValueAsBytes(answer)));
+    }
+
+    private Flowable<Object> apply(final String cartId, final CartOperation operation) {
+        return Flowable.fromCallable(() -> cartBatchService.apply(cartId, List.of(operation)))
+                .subscribeOn(scheduler)
+                .concatMapIterable(this::answersOf)
+                .onErrorReturn(e -> failed(operation, e));
+    }
+
+    private List<Object> answersOf(final CartBatchResult batchResult) {
+        final var result = batchResult.getResults().get(0);
+
+        if (result.getStatus() != HttpStatus.CREATED.getCode()) {
+            return List.of(result);
+        }
+
+        final var receipt = checkoutService.checkout().apply(batchResult.getCart());
+
+        return List.of(result,
+                       ReceiptTotal.builder()
+                           .itemCount(receipt.getItems().size())
+                           .totalPrice(receipt.getTotalPrice())
+                           .build());
+    }
+
+    private Optional<CartOperation> decode(final Payload frame) {
+        try {
+            return Optional.ofNullable(operationReader.readValue(ByteBufUtil.getBytes(frame.sliceData())));
+        } catch (IOException e) {
+            return Optional.empty();
+        } finally {
+            frame.release();
+        }
+    }
+
+    /*
+     * A failed operation is answered rather than failing the channel, so that the client can carry on with the
+     * operations it has already sent.
+     */
+    private static CartOperationResult failed(final CartOperation operation, final Throwable e) {
+        final var conflict = e instanceof CartConflictException;
+
+        if (!conflict) {
+            LOG.error("Failed to apply a cart operation over RSocket", e);
+        }
+
+        return CartOperationResult.builder()
+                .op(operation.getOp())
+                .name(operation.getName())
+                .status((conflict ? HttpStatus.CONFLICT : HttpStatus.INTERNAL_SERVER_ERROR).getCode())
+                .message(e.getMessage())
+                .build();
+    }
+
+    private static CartOperationResult malformed() {
+        return CartOperationResult.builder()
+                .status(HttpStatus.BAD_REQUEST.getCode())
+                .message("Malformed cart operation.")
+                .build();
+    }
+}
@@ -0,0 +1,262 @@
+package griz.shop.server.api;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.metrics.Timings;
+import griz.shop.server.service.CartBatchService;
+import griz.shop.server.service.CheckoutService;
+import griz.shop.server.store.CartStore;
+import griz.shop.server.store.ReactiveCartStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.*;
+import io.micronaut.http.hateoas.JsonError;
+import io.micronaut.http.hateoas.Link;
+import io.micronaut.session.Session;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+import static griz.shop.server.api.ResponseCache.Response.CART;
+import static griz.shop.server.api.ResponseCache.Response.RECEIPT;
+import static griz.shop.server.domain.CartItem.FIELD_NAME_QUANTITY;
+import static io.micronaut.http.HttpResponse.badRequest;
+import static io.micronaut.http.HttpResponse.created;
+import static io.micronaut.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Non-blocking variant of the {@link CartOperations} endpoint.
+ *
+ * <p>Provides the same operations with the same responses, but reads and writes {@link Cart}s through the
+ * {@link ReactiveCartStore}, such that no request thread waits on the store while a request is in flight. Responses
+ * that price or serialize a {@code Cart} are produced on the computation {@link Schedulers scheduler} rather than on
+ * the event loop that completed the read, so that large carts do not stall the other connections of that event loop.
+ *
+ * <p>Requests for a single item, to add, get, update or remove it, are timed under
+ * {@value CartOperations#METRIC_ITEM_REQUESTS}, from subscription until the response is produced.
+ *
+ * @author nichollsmc
+ */
+@Controller("/rx/cart")
+public class ReactiveCartOperations {
+
+    @Inject
+    CartStore cartStore;
+
+    @Inject
+    CheckoutService checkoutService;
+
+    @Inject
+    JsonLinesEncoder jsonLinesEncoder;
+
+    @Inject
+    ResponseCache responseCache;
+
+    @Value("${shop.cart.receipt.page-size:1000}")
+    int receiptPageSize;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private Timer itemRequestTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        itemRequestTimer = meterRegistry.timer(CartOperations.METRIC_ITEM_REQUESTS, "api", "reactive");
+    }
+
+    /**
+     * Return the current content of the {@link Cart}.
+     *
+     * <p>The content is served from the {@link ResponseCache} while the version of the {@code Cart} is unchanged.
+     *
+     * @param session the {@link Session} used for managing the state of a {@code Cart}
+     * @return the contents of the {@code Cart}
+     */
+    @Get(produces = APPLICATION_JSON)
+    public Single<MutableHttpResponse<?>> viewCart(final Session session) {
+        final var cartId = session.getId();
+
+        return store().findVersion(cartId)
+                .flatMap(version ->
+                    responseCache.find(cartId, version, CART)
+                        .map(Single::just)
+                        .orElseGet(() ->
+                            store().findCart(cartId)
+                                .observeOn(Schedulers.computation())
+                                .map(cart -> responseCache.put(cartId, cart, CART, () -> cart))))
+                .<MutableHttpResponse<?>>map(HttpResponse::ok);
+    }
+
+    /**
+     * Adds an item to the {@link Cart}.
+     *
+     * @param httpRequest the {@link HttpRequest} object
+     * @param session the {@link Session} used for managing the state of a {@code Cart}
+     * @param cartItem the {@code CartItem} to add to the {@code Cart}
+     * @return a JSON document representing the added {@code CartItem}
+     */
+    @Put(consumes = APPLICATION_JSON, produces = APPLICATION_JSON)
+    public Single<MutableHttpResponse<?>> addItem(final HttpRequest<?> httpRequest,
+                                                  final Session session,
+                                                  @Body @Valid final CartItem cartItem) {
+        return Timings.timed(
+                itemRequestTimer,
+                Single.defer(() -> store().addItem(session.getId(),
+                                                   cartItem,
+                                                   checkoutService.priceItem().apply(cartItem)))
+                    .<MutableHttpResponse<?>>map(added -> {
+                        if (added) {
+                            return created(cartItem);
+                        }
+
+                        final var errorResponse =
+                            new JsonError(CartBatchService.duplicateItemMessage(cartItem.getName()))
+                                .link(Link.SELF, Link.of(httpRequest.getUri()));
+
+                        return badRequest(errorResponse);
+                    }));
+    }
+
+    /**
+     * Retrieves a {@link Cart} item using the provided name.
+     *
+     * @param session the {@link Session} used for managing the state of a {@code Cart}
+     * @param name the path parameter representing the name of an item in the {@code Cart}
+     * @return the {@code CartItem} for the specified name, otherwise an HTTP 404 - Not found response
+     */
+    @Get(value = "{name}", produces = APPLICATION_JSON)
+    public Single<MutableHttpResponse<?>> getItem(final Session session, @NotBlank final String name) {
+        return handleRequestForCartItem((cartId, existingCartItem) ->
+            Single.just(existingCartItem
+                            .<MutableHttpResponse<?>>map(HttpResponse::ok)
+                            .orElseGet(HttpResponse::notFound)))
+        .apply(session, name);
+    }
+
+    /**
+     * Updates the quantity for an item in the {@link Cart} using the quantity provided in the request body.
+     *
+     * @param session the {@link Session} used for managing the state of a {@code Cart}
+     * @param name the path parameter representing the name of an item in the {@code Cart}
+     * @param quantity the new quantity for an item in the {@code Cart} provided in the request body
+     * @return a JSON document representing the updated {@code CartItem}, otherwise an HTTP 404 - Not found response
+     */
+    @Post(value = "{name}", consumes = APPLICATION_JSON, produces = APPLICATION_JSON)
+    public Single<MutableHttpResponse<?>> updateItemQuantity(final Session session,
+                                                             @NotBlank final String name,
+                                                             @Body final Map<String, Long> quantity) {
+        final var cartId = session.getId();
+
+        return Timings.timed(
+                itemRequestTimer,
+                Optional.ofNullable(quantity)
+                    .flatMap(qmap -> Optional.ofNullable(qmap.get(FIELD_NAME_QUANTITY)))
+                    .map(q -> store().updateItemQuantity(cartId, name, q))
+                    .orElseGet(() -> store().findItem(cartId, name))
+                    .<MutableHttpResponse<?>>map(HttpResponse::created)
+                    .toSingle(HttpResponse.notFound()));
+    }
+
+    /**
+     * Removes an item from the {@link Cart} that matches the provided name.
+     *
+     * @param session the {@link Session} used for managing the state of a {@code Cart}
+     * @param name the path parameter representing the name of an item in the {@code Cart}
+     * @return a JSON document representing the removed {@code CartItem}, otherwise an HTTP 404 - Not found response
+     */
+    @Delete(value = "{name}", produces = APPLICATION_JSON)
+    public Single<MutableHttpResponse<?>> removeItem(final Session session, @NotBlank final String name) {
+        return Timings.timed(
+                itemRequestTimer,
+                store().removeItem(session.getId(), name)
+                    .<MutableHttpResponse<?>>map(HttpResponse::created)
+                    .toSingle(HttpResponse.notFound()));
+    }
+
+    /**
+     * Removes all items from the {@link Cart}.
+     *
+     * @param session the {@link Session} used for managing the state of a {@code Cart}
+     * @return a {@link Completable} completing once the {@code Cart} has been cleared
+     */
+    @Delete("/clear")
+    public Completable clearCart(final Session session) {
+        return Optional.ofNullable(session)
+                .map(s -> store().clear(s.getId()))
+                .orElseGet(Completable::complete);
+    }
+
+    /**
+     * Calculates the total (including discounts) of the {@link Cart} and returns a JSON document representing the
+     * {@link griz.shop.server.domain.Receipt}.
+     *
+     * <p>The receipt is served from the {@link ResponseCache} while the version of the {@code Cart} is unchanged.
+     *
+     * @param session the {@link Session} used for managing the state of a {@code Cart}
+     * @return the receipt for the {@code Cart} content
+     */
+    @Get(value = "/receipt", produces = APPLICATION_JSON)
+    public Single<MutableHttpResponse<?>> receipt(final Session session) {
+        final var cartId   = session.getId();
+        final var checkout = checkoutService.checkout();
+
+        return store().findVersion(cartId)
+                .flatMap(version ->
+                    responseCache.find(cartId, version, RECEIPT)
+                        .map(Single::just)
+                        .orElseGet(() ->
+                            store().findCart(cartId)
+                                .observeOn(Schedulers.computation())
+                                .map(cart -> responseCache.put(cartId, cart, RECEIPT, () -> checkout.apply(cart)))))
+                .<MutableHttpResponse<?>>map(HttpResponse::ok);
+    }
+
+    /**
+     * Streams the {@link griz.shop.server.domain.Receipt} of the {@link Cart} as newline-delimited JSON.
+     *
+     * <p>The {@code Cart} is read and priced a page at a time, and every
+     * {@link griz.shop.server.domain.ReceiptItem} is written on its own line as soon as its page has been priced. The
+     * last line is the {@link griz.shop.server.domain.ReceiptTotal}. The memory used by a request is bounded by the
+     * page size {@code shop.cart.receipt.page-size}, regardless of the size of the {@code Cart}.
+     *
+     * @param session the {@link Session} used for managing the state of a {@code Cart}
+     * @return the chunks of the receipt for the {@code Cart} content
+     */
+    @Get(value = "/receipt/stream", produces = JsonLinesEncoder.MEDIA_TYPE)
+    public Flowable<byte[]> streamReceipt(final Session session) {
+        return jsonLinesEncoder.encode(
+                checkoutService.streamingCheckout()
+                    .apply(store().streamCart(session.getId(), receiptPageSize)
+                               .observeOn(Schedulers.computation())));
+    }
+
+    private BiFunction<Session, String, Single<MutableHttpResponse<?>>>
+        handleRequestForCartItem(
+            final BiFunction<String, Optional<CartItem>, Single<MutableHttpResponse<?>>> cartItemHandler) {
+            return (session, cartItemName) ->
+                Timings.timed(
+                    itemRequestTimer,
+                    store().findItem(session.getId(), cartItemName)
+                        .map(Optional::of)
+                        .toSingle(Optional.empty())
+                        .flatMap(existingCartItem -> cartItemHandler.apply(session.getId(), existingCartItem)));
+    }
+
+    private ReactiveCartStore store() {
+        return cartStore.reactive();
+    }
+}
@@ -0,0 +1,205 @@
+package griz.shop.server.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.Receipt;
+import griz.shop.server.service.DiscountEngine;
+import griz.shop.server.store.CartStore;
+import griz.shop.server.store.RedisHashCartStore;
+import griz.shop.server.store.SessionCartStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Value;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the serialized responses for reading a {@link Cart}, keyed by the identifier and the version of
+ * the {@code Cart} and the {@link DiscountEngine#generation() generation} of the discount tiers.
+ *
+ * <p>Every mutation of a {@code Cart} advances its version, so a cached response is only served while the content of
+ * its {@code Cart} is unchanged, without explicit invalidation by the operations that mutate it. A reload that changes
+ * the discount tiers changes the generation, so receipts priced with the earlier tiers are not served either. Only the
+ * responses for the latest version of each {@code Cart} are kept. Responses are cached as the JSON written by the
+ * configured {@link ObjectMapper}, and a hit is written as a {@link ByteBuf} wrapping the cached bytes, so it neither
+ * maps objects nor copies the response.
+ *
+ * <p>The cache is disabled with the {@value SessionCartStore#MODE} store. A session cart is versioned per copy of its
+ * session, and concurrent requests of the same session can save different content under the same version, so the
+ * version does not identify the content of the {@code Cart}. Responses are then produced for every request.
+ *
+ * <p>Lookups are counted under {@value #METRIC_REQUESTS}, tagged with the {@code response} and a {@code result} of
+ * {@code hit} or {@code miss}, and the number of cached carts is reported as {@value #METRIC_SIZE}.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+public class ResponseCache {
+
+    /**
+     * Defines the name of the counter of response cache lookups.
+     */
+    public static final String METRIC_REQUESTS = "shop.response.cache.requests";
+
+    /**
+     * Defines the name of the gauge of carts with cached responses.
+     */
+    public static final String METRIC_SIZE = "shop.response.cache.size";
+
+    /**
+     * The cached responses of a {@link Cart}.
+     */
+    public enum Response {
+        /**
+         * The content of the {@link Cart}.
+         */
+        CART,
+
+        /**
+         * The {@link Receipt} of the {@link Cart}.
+         */
+        RECEIPT
+    }
+
+    private final Cache<String, CachedResponses> responses;
+    private final ObjectMapper                   objectMapper;
+    private final DiscountEngine                 discountEngine;
+    private final boolean                        enabled;
+    private final Map<Response, Counter>         hits;
+    private final Map<Response, Counter>         misses;
+
+    @Inject
+    public ResponseCache(final ObjectMapper objectMapper,
+                         final DiscountEngine discountEngine,
+                         final MeterRegistry meterRegistry,
+                         @Value("${shop.cart.response-cache.maximum-size:10000}") final long maximumSize,
+                         @Value("${" + CartStore.PROPERTY_MODE + ":" + RedisHashCartStore.MODE + "}")
+                         final String storeMode) {
+        this.responses      = Caffeine.newBuilder().maximumSize(maximumSize).build();
+        this.objectMapper   = objectMapper;
+        this.discountEngine = discountEngine;
+        this.enabled        = !SessionCartStore.MODE.equals(storeMode);
+        this.hits           = new EnumMap<>(Response.class);
+        this.misses         = new EnumMap<>(Response.class);
+
+        for (final var response : Response.values()) {
+            final var tag = response.name().toLowerCase();
+
+            hits.put(response, meterRegistry.counter(METRIC_REQUESTS, "response", tag, "result", "hit"));
+            misses.put(response, meterRegistry.counter(METRIC_REQUESTS, "response", tag, "result", "miss"));
+        }
+
+        meterRegistry.gauge(METRIC_SIZE, responses, Cache::estimatedSize);
+    }
+
+    /**
+     * Returns an {@link Optional} for the cached response for the {@link Cart} at the provided version and the current
+     * generation of the discount tiers.
+     *
+     * <p>The {@code Optional} is always empty when the cache is disabled.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param version the current version of the {@code Cart}
+     * @param response the {@link Response}
+     * @return the {@code Optional} for the JSON of the response
+     */
+    public Optional<ByteBuf> find(final String cartId, final long version, final Response response) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        final var generation = discountEngine.generation();
+
+        final var json =
+            Optional.ofNullable(responses.getIfPresent(cartId))
+                .filter(cached -> cached.version == version && cached.generation == generation)
+                .map(cached -> cached.json[response.ordinal()]);
+
+        (json.isPresent() ? hits : misses).get(response).increment();
+
+        return json.map(Unpooled::wrappedBuffer);
+    }
+
+    /**
+     * Produces and serializes the response for the {@link Cart} and caches it under the
+     * {@link Cart#getVersion() version} of the {@code Cart} and the generation of the discount tiers.
+     *
+     * <p>The generation is read before the body is produced, so a body priced during a reload of the tiers is cached
+     * under the earlier generation and not served once the reload completes. The response is only serialized when
+     * the cache is disabled.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param cart the {@code Cart}
+     * @param response the {@link Response}
+     * @param body the {@link Supplier} of the body of the response
+     * @return the JSON of the response
+     */
+    public ByteBuf put(final String cartId, final Cart cart, final Response response, final Supplier<?> body) {
+        final var version    = cart.getVersion();
+        final var generation = discountEngine.generation();
+        final var json       = serialize(body.get());
+
+        if (!enabled) {
+            return Unpooled.wrappedBuffer(json);
+        }
+
+        responses.asMap().compute(cartId, (id, cached) -> {
+            if (cached == null
+                    || cached.version < version
+                    || cached.version == version && cached.generation != generation) {
+                return new CachedResponses(version, generation).with(response, json);
+            }
+
+            return cached.version == version ? cached.with(response, json) : cached;
+        });
+
+        return Unpooled.wrappedBuffer(json);
+    }
+
+    private byte[] serialize(final Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Immutable, so that entries can be read without locking; adding a response copies the entry.
+     */
+    private static final class CachedResponses {
+        private final long     version;
+        private final long     generation;
+        private final byte[][] json;
+
+        CachedResponses(final long version, final long generation) {
+            this(version, generation, new byte[Response.values().length][]);
+        }
+
+        private CachedResponses(final long version, final long generation, final byte[][] json) {
+            this.version    = version;
+            this.generation = generation;
+            this.json       = json;
+        }
+
+        CachedResponses with(final Response response, final byte[] body) {
+            final var copy = Arrays.copyOf(json, json.length);
+
+            copy[response.ordinal()] = body;
+
+            return new CachedResponses(version, generation, copy);
+        }
+    }
+}
@@ -1,29 +1,268 @@
 package griz.shop.server.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.micronaut.core.annotation.Introspected;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
-import static java.util.stream.Collectors.toSet;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Cart
  *
+ * <p>Items are indexed by the case-folded form of their name (see {@link #keyOf(String)}), so that finding, adding
+ * and removing an item takes constant time regardless of the number of items in the cart.
+ *
+ * <p>The cart also keeps the priced {@link ReceiptItem} for each item, the running total of all priced items and the
+ * number of items priced with each generation of discount tiers. All are maintained in constant time as items are
+ * added, priced and removed, so that producing a {@link Receipt} for a cart fully priced with the current tiers is a
+ * read.
+ *
  * @author nichollsmc
  */
 @Data
-@Builder
 @Introspected
 @NoArgsConstructor
-@AllArgsConstructor
+@EqualsAndHashCode(doNotUseGetters = true)
 public class Cart {
 
-    private Set<CartItem> items;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<String, CartItem> items = new HashMap<>();
+
+    /**
+     * Version stamp of the cart content, advanced by the store on every mutation.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private long version;
+
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<String, ReceiptItem> receiptItems = new HashMap<>();
+
+    /**
+     * Sum of the total prices of all priced items.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @Setter(AccessLevel.NONE)
+    private BigDecimal totalPrice = BigDecimal.ZERO;
+
+    /**
+     * Number of priced items by {@link ReceiptItem#getGeneration() generation} of discount tiers.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<Long, Integer> pricedGenerations = new HashMap<>();
+
+    /**
+     * Creates a new {@code Cart} containing the provided items.
+     *
+     * @param items the {@link CartItem}s of the cart
+     */
+    @Builder
+    public Cart(final Collection<CartItem> items) {
+        setItems(items);
+    }
+
+    /**
+     * Returns a copy of the {@code Cart} that can be modified without affecting this instance.
+     *
+     * <p>Items and priced lines are shared with this instance, so they must be replaced rather than modified.
+     *
+     * @return the copy of the cart
+     */
+    public Cart copy() {
+        final var copy = new Cart();
+
+        copy.items.putAll(items);
+        copy.receiptItems.putAll(receiptItems);
+        copy.pricedGenerations.putAll(pricedGenerations);
+        copy.totalPrice = totalPrice;
+        copy.version    = version;
+
+        return copy;
+    }
+
+    /**
+     * Returns the case-folded key for a {@link CartItem} name, such that names which are equal ignoring case produce
+     * the same key.
+     *
+     * @param name the name of the {@code CartItem}
+     * @return the key for the name
+     */
+    public static String keyOf(final String name) {
+        final var chars = name.toCharArray();
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Returns an unmodifiable view of the items in the {@code Cart}.
+     *
+     * @return the {@link CartItem}s of the cart
+     */
+    public Collection<CartItem> getItems() {
+        return Collections.unmodifiableCollection(items.values());
+    }
+
+    /**
+     * Replaces the items in the {@code Cart} with the provided items.
+     *
+     * @param items the {@link CartItem}s of the cart
+     */
+    public void setItems(final Collection<CartItem> items) {
+        this.items.clear();
+        this.receiptItems.clear();
+        this.pricedGenerations.clear();
+        this.totalPrice = BigDecimal.ZERO;
+        Optional.ofNullable(items).ifPresent(i -> i.forEach(this::addItem));
+    }
+
+    /**
+     * Adds a {@link CartItem} to the {@code Cart}, replacing any item with the same name (ignoring case).
+     *
+     * <p>The priced {@link ReceiptItem} of a replaced item is discarded.
+     *
+     * @param cartItem the {@code CartItem} to add
+     * @return an {@code Optional} for the item that was replaced
+     */
+    public Optional<CartItem> addItem(final CartItem cartItem) {
+        final var key = keyOf(cartItem.getName());
+
+        removeReceiptItem(key);
+
+        return Optional.ofNullable(items.put(key, cartItem));
+    }
+
+    /**
+     * Adds a {@link CartItem} to the {@code Cart} together with its priced {@link ReceiptItem}.
+     *
+     * @param cartItem the {@code CartItem} to add
+     * @param receiptItem the {@code ReceiptItem} for the {@code CartItem}
+     * @return an {@code Optional} for the item that was replaced
+     */
+    public Optional<CartItem> addItem(final CartItem cartItem, final ReceiptItem receiptItem) {
+        final var replaced = addItem(cartItem);
+
+        receiptItems.put(keyOf(cartItem.getName()), receiptItem);
+        totalPrice = totalPrice.add(receiptItem.getTotalPrice());
+        pricedGenerations.merge(receiptItem.getGeneration(), 1, Integer::sum);
+
+        return replaced;
+    }
+
+    /**
+     * Returns an {@link Optional} for the priced {@link ReceiptItem} of the item with the provided name.
+     *
+     * @param name the name of the {@code CartItem}
+     * @return the {@code Optional} for the {@code ReceiptItem}
+     */
+    public Optional<ReceiptItem> findReceiptItemByName(final String name) {
+        return Optional.ofNullable(name)
+                .filter(n -> !n.isBlank())
+                .map(n -> receiptItems.get(keyOf(n)));
+    }
+
+    /**
+     * Returns whether every item in the {@code Cart} has a priced {@link ReceiptItem}.
+     *
+     * @return {@code true} if the cart is fully priced, otherwise {@code false}
+     */
+    @JsonIgnore
+    public boolean isPriced() {
+        return receiptItems.size() == items.size();
+    }
+
+    /**
+     * Returns whether every item in the {@code Cart} has a {@link ReceiptItem} priced with the provided generation of
+     * discount tiers.
+     *
+     * @param generation the generation of the discount tiers
+     * @return {@code true} if the cart is fully priced with the generation, otherwise {@code false}
+     */
+    public boolean isPriced(final long generation) {
+        return pricedGenerations.getOrDefault(generation, 0) == items.size();
+    }
+
+    /**
+     * Returns the items in the {@code Cart} that have no {@link ReceiptItem} priced with the provided generation of
+     * discount tiers.
+     *
+     * @param generation the generation of the discount tiers
+     * @return the {@link CartItem}s of the cart to price
+     */
+    public List<CartItem> getUnpricedItems(final long generation) {
+        return items.entrySet().stream()
+                .filter(item -> Optional.ofNullable(receiptItems.get(item.getKey()))
+                                    .filter(receiptItem -> receiptItem.getGeneration() == generation)
+                                    .isEmpty())
+                .map(Map.Entry::getValue)
+                .collect(toList());
+    }
+
+    /**
+     * Returns a {@link Receipt} over the priced items and running total of the {@code Cart}.
+     *
+     * <p>The items of the receipt are an unmodifiable view, and the result is only complete when the cart
+     * {@link #isPriced() is priced}.
+     *
+     * @return the {@code Receipt} for the cart
+     */
+    public Receipt toReceipt() {
+        return Receipt.builder()
+                .items(Collections.unmodifiableCollection(receiptItems.values()))
+                .totalPrice(totalPrice)
+                .build();
+    }
+
+    /**
+     * Returns a {@link Receipt} over the items of the {@code Cart} priced with the provided generation of discount
+     * tiers.
+     *
+     * <p>When every priced item has the generation, this is {@link #toReceipt()}; otherwise the items and total are
+     * collected from the items of the generation.
+     *
+     * @param generation the generation of the discount tiers
+     * @return the {@code Receipt} for the items priced with the generation
+     */
+    public Receipt toReceipt(final long generation) {
+        if (pricedGenerations.getOrDefault(generation, 0) == receiptItems.size()) {
+            return toReceipt();
+        }
+
+        final var current =
+            receiptItems.values().stream()
+                .filter(receiptItem -> receiptItem.getGeneration() == generation)
+                .collect(toList());
+
+        return Receipt.builder()
+                .items(current)
+                .totalPrice(current.stream().map(ReceiptItem::getTotalPrice).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .build();
+    }
 
     /**
      * Returns an {@link Optional} for a {@link CartItem} for the provided name.
@@ -33,10 +272,7 @@ public class Cart {
     public Optional<CartItem> findItemByName(final String name) {
         return Optional.ofNullable(name)
                 .filter(n -> !n.isBlank())
-                .flatMap(n -> Optional.ofNullable(getItems()).flatMap(items ->
-                                items.stream()
-                                    .filter(item -> item.getName().equalsIgnoreCase(n))
-                                    .findFirst()));
+                .map(n -> items.get(keyOf(n)));
     }
 
     /**
@@ -46,13 +282,21 @@ public class Cart {
      * @return an {@code Optional} for the item that was removed
      */
     public Optional<CartItem> removeItemByName(final String name) {
-        return findItemByName(name)
-                .map(item -> {
-                    setItems(getItems().stream()
-                                .filter(i -> !item.getName().equalsIgnoreCase(i.getName()))
-                                .collect(toSet()));
-
-                    return item;
+        return Optional.ofNullable(name)
+                .filter(n -> !n.isBlank())
+                .map(Cart::keyOf)
+                .map(key -> {
+                    removeReceiptItem(key);
+                    return items.remove(key);
                 });
     }
+
+    private void removeReceiptItem(final String key) {
+        Optional.ofNullable(receiptItems.remove(key))
+            .ifPresent(receiptItem -> {
+                totalPrice = totalPrice.subtract(receiptItem.getTotalPrice());
+                pricedGenerations.computeIfPresent(receiptItem.getGeneration(), (generation, count) ->
+                    count == 1 ? null : count - 1);
+            });
+    }
 }
@@ -0,0 +1,24 @@
+package griz.shop.server.domain;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The {@link Cart} resulting from a batch of {@link CartOperation}s, with the outcome of each operation in order.
+ *
+ * @author nichollsmc
+ */
+@Data
+@Builder
+@Introspected
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchResult {
+    private Cart                      cart;
+    private List<CartOperationResult> results;
+}
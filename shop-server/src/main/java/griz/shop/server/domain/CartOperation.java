@@ -0,0 +1,69 @@
+package griz.shop.server.domain;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micronaut.core.annotation.Introspected;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * A single operation of a batch of {@link Cart} mutations.
+ *
+ * <p>An {@link Type#ADD add} carries the fields of the {@link CartItem} to add, an {@link Type#UPDATE update} the name
+ * and the new quantity of an item, and a {@link Type#REMOVE remove} only the name of an item.
+ *
+ * @author nichollsmc
+ */
+@Data
+@Builder
+@Introspected
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperation {
+
+    /**
+     * Defines the maximum number of operations in a batch.
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * Types of {@code CartOperation}s.
+     */
+    public enum Type {
+        @JsonProperty("add")
+        ADD,
+        @JsonProperty("update")
+        UPDATE,
+        @JsonProperty("remove")
+        REMOVE
+    }
+
+    @NotNull
+    private Type       op;
+
+    @NotBlank
+    private String     name;
+
+    private BigDecimal pricePerItem;
+
+    private Long       quantity;
+
+    /**
+     * Returns the {@link CartItem} added by this operation.
+     *
+     * @return the {@code CartItem}
+     */
+    public CartItem toCartItem() {
+        return CartItem.builder()
+                .name(name)
+                .pricePerItem(pricePerItem)
+                .quantity(quantity == null ? null : BigInteger.valueOf(quantity))
+                .build();
+    }
+}
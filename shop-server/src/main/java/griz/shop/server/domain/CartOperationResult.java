@@ -0,0 +1,31 @@
+package griz.shop.server.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.micronaut.core.annotation.Introspected;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+/**
+ * The outcome of a single {@link CartOperation} of a batch.
+ *
+ * <p>The status is the HTTP status the equivalent single-item request would have produced.
+ *
+ * @author nichollsmc
+ */
+@Data
+@Builder
+@Introspected
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(NON_NULL)
+public class CartOperationResult {
+    private CartOperation.Type op;
+    private String             name;
+    private int                status;
+    private CartItem           item;
+    private String             message;
+}
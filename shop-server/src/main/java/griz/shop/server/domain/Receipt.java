@@ -7,7 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
-import java.util.Set;
+import java.util.Collection;
 
 /**
  * Receipt
@@ -20,6 +20,6 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Receipt {
-    private Set<ReceiptItem> items;
-    private BigDecimal       totalPrice;
+    private Collection<ReceiptItem> items;
+    private BigDecimal              totalPrice;
 }
@@ -1,5 +1,6 @@
 package griz.shop.server.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.micronaut.core.annotation.Introspected;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -33,4 +34,10 @@ public class ReceiptItem {
     @NotNull
     @Positive
     private BigDecimal totalPrice;
+
+    /**
+     * Generation of the discount tiers the total was priced with, or {@code 0} if unknown.
+     */
+    @JsonIgnore
+    private long       generation;
 }
@@ -0,0 +1,24 @@
+package griz.shop.server.domain;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * The total of a streamed {@link Receipt}, written after its last {@link ReceiptItem}.
+ *
+ * @author nichollsmc
+ */
+@Data
+@Builder
+@Introspected
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptTotal {
+    private long       itemCount;
+    private BigDecimal totalPrice;
+}
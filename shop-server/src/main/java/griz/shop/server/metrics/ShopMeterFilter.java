@@ -0,0 +1,47 @@
+package griz.shop.server.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micronaut.context.annotation.Value;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * {@link MeterFilter} that publishes percentile histograms and client-side percentiles for the timers and
+ * distribution summaries of the shop, i.e. meters named {@value #PREFIX}*.
+ *
+ * <p>Histograms can be aggregated across nodes by the metrics backend, while the percentiles are exported as gauges
+ * for registries that do not support histograms. The percentiles are configured by {@code shop.metrics.percentiles}.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+public class ShopMeterFilter implements MeterFilter {
+
+    /**
+     * Defines the prefix of the names of the meters of the shop.
+     */
+    public static final String PREFIX = "shop.";
+
+    private final double[] percentiles;
+
+    @Inject
+    public ShopMeterFilter(@Value("${shop.metrics.percentiles:0.5,0.95,0.99}") final double[] percentiles) {
+        this.percentiles = percentiles.clone();
+    }
+
+    @Override
+    public DistributionStatisticConfig configure(final Meter.Id id, final DistributionStatisticConfig config) {
+        if (!id.getName().startsWith(PREFIX)) {
+            return config;
+        }
+
+        return DistributionStatisticConfig.builder()
+                .percentilesHistogram(true)
+                .percentiles(percentiles)
+                .build()
+                .merge(config);
+    }
+}
@@ -0,0 +1,51 @@
+package griz.shop.server.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Records the duration of reactive sources with a {@link Timer}, from subscription until the source terminates or is
+ * disposed.
+ *
+ * @author nichollsmc
+ */
+public final class Timings {
+
+    private Timings() {
+    }
+
+    /**
+     * Returns a {@link Single} that records the duration of every subscription to the provided {@code Single}.
+     *
+     * @param timer the {@link Timer} recording the duration
+     * @param single the {@code Single} to time
+     * @param <T> the type of the item
+     * @return the timed {@code Single}
+     */
+    public static <T> Single<T> timed(final Timer timer, final Single<T> single) {
+        return Single.defer(() -> {
+            final var start = System.nanoTime();
+
+            return single.doFinally(() -> timer.record(System.nanoTime() - start, NANOSECONDS));
+        });
+    }
+
+    /**
+     * Returns a {@link Maybe} that records the duration of every subscription to the provided {@code Maybe}.
+     *
+     * @param timer the {@link Timer} recording the duration
+     * @param maybe the {@code Maybe} to time
+     * @param <T> the type of the item
+     * @return the timed {@code Maybe}
+     */
+    public static <T> Maybe<T> timed(final Timer timer, final Maybe<T> maybe) {
+        return Maybe.defer(() -> {
+            final var start = System.nanoTime();
+
+            return maybe.doFinally(() -> timer.record(System.nanoTime() - start, NANOSECONDS));
+        });
+    }
+}
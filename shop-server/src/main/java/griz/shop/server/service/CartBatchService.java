@@ -0,0 +1,168 @@
+package griz.shop.server.service;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartBatchResult;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.CartOperation;
+import griz.shop.server.domain.CartOperationResult;
+import griz.shop.server.store.CartStore;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.validation.validator.Validator;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+
+import static griz.shop.server.domain.CartItem.ITEM_MAX_QUANTITY;
+import static java.lang.String.format;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Applies batches of {@link CartOperation}s to {@link Cart}s, for every API exposing batches.
+ *
+ * <p>A batch is a read-modify-write update of the items it names, which is applied again when the {@code Cart} was
+ * modified concurrently, so the changes of a batch are written back once. Each operation follows the rules of the
+ * equivalent single-item operation, and its outcome is reported with the HTTP status of that operation. The
+ * {@code Cart} reported with the outcomes is the one the batch was applied to, as it was saved, rather than a later read
+ * that could include or miss the writes of others.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+public class CartBatchService {
+
+    private final CartStore       cartStore;
+    private final CheckoutService checkoutService;
+    private final Validator       validator;
+
+    @Inject
+    public CartBatchService(final CartStore cartStore,
+                            final CheckoutService checkoutService,
+                            final Validator validator) {
+        this.cartStore       = cartStore;
+        this.checkoutService = checkoutService;
+        this.validator       = validator;
+    }
+
+    /**
+     * Applies a batch of add, update and remove operations to the {@link Cart}, in order.
+     *
+     * <p>Adding an item that already exists is rejected, updating or removing an item that does not exist is not
+     * found, and an update to a quantity of zero removes the item. Unlike the single-item update, an update to a
+     * quantity out of bounds is rejected. Operations that are rejected do not affect the {@code Cart}; all others are
+     * saved together.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param operations the {@link CartOperation}s to apply
+     * @return the resulting {@code Cart} and the outcome of each operation
+     */
+    public CartBatchResult apply(final String cartId, final List<CartOperation> operations) {
+        final var names = operations.stream().map(CartOperation::getName).collect(toList());
+
+        return cartStore.update(cartId, names, cart ->
+            CartBatchResult.builder()
+                .results(operations.stream()
+                             .map(operation -> applyOperation(cart, operation))
+                             .collect(toList()))
+                .cart(cart)
+                .build());
+    }
+
+    private CartOperationResult applyOperation(final Cart cart, final CartOperation operation) {
+        final var result = CartOperationResult.builder().op(operation.getOp()).name(operation.getName());
+        final var errors = violationsOf(operation);
+
+        if (errors.isPresent()) {
+            return result.status(HttpStatus.BAD_REQUEST.getCode()).message(errors.get()).build();
+        }
+
+        final var name             = operation.getName();
+        final var existingCartItem = cart.findItemByName(name);
+
+        switch (operation.getOp()) {
+            case ADD:
+                final var cartItem = operation.toCartItem();
+
+                return violationsOf(cartItem)
+                        .or(() -> existingCartItem.map(eci -> duplicateItemMessage(name)))
+                        .map(message -> result.status(HttpStatus.BAD_REQUEST.getCode()).message(message))
+                        .orElseGet(() -> {
+                            cart.addItem(cartItem, checkoutService.priceItem().apply(cartItem));
+                            return result.status(HttpStatus.CREATED.getCode()).item(cartItem);
+                        })
+                        .build();
+            case UPDATE:
+                if (existingCartItem.isEmpty()) {
+                    return result.status(HttpStatus.NOT_FOUND.getCode()).build();
+                }
+
+                return validQuantity(operation.getQuantity())
+                        .map(q -> result.status(HttpStatus.CREATED.getCode())
+                                        .item(updateQuantity(cart, existingCartItem.get(), q)))
+                        .orElseGet(() ->
+                            result.status(HttpStatus.BAD_REQUEST.getCode())
+                                  .message(format("Quantity must be between 0 and %d.", ITEM_MAX_QUANTITY)))
+                        .build();
+            default:
+                return cart.removeItemByName(name)
+                        .map(removed -> result.status(HttpStatus.CREATED.getCode()).item(removed))
+                        .orElseGet(() -> result.status(HttpStatus.NOT_FOUND.getCode()))
+                        .build();
+        }
+    }
+
+    /*
+     * Items are replaced rather than modified, since they may be shared with cached carts.
+     */
+    private CartItem updateQuantity(final Cart cart, final CartItem cartItem, final long quantity) {
+        if (quantity == 0) {
+            cart.removeItemByName(cartItem.getName());
+            return cartItem;
+        }
+
+        final var updatedCartItem =
+            CartItem.builder()
+                .name(cartItem.getName())
+                .pricePerItem(cartItem.getPricePerItem())
+                .quantity(BigInteger.valueOf(quantity))
+                .build();
+
+        cart.addItem(updatedCartItem, checkoutService.priceItem().apply(updatedCartItem));
+
+        return updatedCartItem;
+    }
+
+    /**
+     * Returns an {@link Optional} for the message describing the constraint violations of the provided object.
+     *
+     * @param object the object to validate
+     * @return the {@code Optional} for the message, or an empty {@code Optional} if the object is valid
+     */
+    public Optional<String> violationsOf(final Object object) {
+        return Optional.of(validator.validate(object))
+                .filter(violations -> !violations.isEmpty())
+                .map(violations ->
+                    violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(joining(", ")));
+    }
+
+    private static Optional<Long> validQuantity(final Long quantity) {
+        return Optional.ofNullable(quantity)
+                .filter(q -> q >= 0 && q <= ITEM_MAX_QUANTITY);
+    }
+
+    /**
+     * Returns the message of an addition that is rejected since the {@link Cart} already has the item.
+     *
+     * @param name the name of the item
+     * @return the message
+     */
+    public static String duplicateItemMessage(final String name) {
+        return format("Item '%s' already exists in cart.", name);
+    }
+}
@@ -0,0 +1,144 @@
+package griz.shop.server.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micronaut.context.annotation.Value;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Executes the per-item work of a checkout using a strategy chosen from the number of items.
+ *
+ * <p>Small carts are processed sequentially on the calling thread, since splitting the work costs more than the work
+ * itself. Medium carts are split into a few coarse batches, and only large carts are processed as a parallel stream.
+ * Batched and parallel work runs on a dedicated {@link ForkJoinPool}, so checkout does not compete with the common
+ * pool, and the pool is instrumented under {@value #METRIC_POOL}.
+ *
+ * <p>The thresholds are configured under {@code shop.checkout}, where a threshold of {@code 0} disables the strategy it
+ * starts. Both are disabled by default, so every cart is processed sequentially until the crossover points have been
+ * measured on the target hardware with the {@code CheckoutExecutorBenchmark}; the README keeps the results so far.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+public class CheckoutExecutor {
+
+    /**
+     * Defines the name of the metrics for the checkout {@link ForkJoinPool}.
+     */
+    public static final String METRIC_POOL = "shop.checkout.pool";
+
+    /**
+     * Defines the name of the counter of checkout executions, tagged by strategy.
+     */
+    public static final String METRIC_EXECUTIONS = "shop.checkout.executions";
+
+    /**
+     * Strategies for executing the per-item work of a checkout.
+     */
+    public enum Strategy {
+        SEQUENTIAL,
+        BATCHED,
+        PARALLEL
+    }
+
+    private final ForkJoinPool           pool;
+    private final int                    sequentialThreshold;
+    private final int                    parallelThreshold;
+    private final int                    batchSize;
+    private final Map<Strategy, Counter> executions;
+
+    @Inject
+    public CheckoutExecutor(@Value("${shop.checkout.parallelism:0}") final int parallelism,
+                            @Value("${shop.checkout.sequential-threshold:0}") final int sequentialThreshold,
+                            @Value("${shop.checkout.parallel-threshold:0}") final int parallelThreshold,
+                            @Value("${shop.checkout.batch-size:1024}") final int batchSize,
+                            final MeterRegistry meterRegistry) {
+        this.pool                = new ForkJoinPool(parallelism > 0
+                                                        ? parallelism
+                                                        : Runtime.getRuntime().availableProcessors());
+        this.sequentialThreshold = sequentialThreshold;
+        this.parallelThreshold   = parallelThreshold;
+        this.batchSize           = Math.max(1, batchSize);
+        this.executions          = new EnumMap<>(Strategy.class);
+
+        for (final var strategy : Strategy.values()) {
+            executions.put(strategy, meterRegistry.counter(METRIC_EXECUTIONS, "strategy", strategy.name()));
+        }
+
+        new ExecutorServiceMetrics(pool, METRIC_POOL, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Returns the {@link Strategy} used for the provided number of items.
+     *
+     * @param size the number of items
+     * @return the {@code Strategy} for the number of items
+     */
+    public Strategy strategyFor(final int size) {
+        if (parallelThreshold > 0 && size >= parallelThreshold) {
+            return Strategy.PARALLEL;
+        }
+
+        return sequentialThreshold > 0 && size >= sequentialThreshold ? Strategy.BATCHED : Strategy.SEQUENTIAL;
+    }
+
+    /**
+     * Applies the mapper to every item, using the {@link Strategy} for the number of items.
+     *
+     * @param items the items to map
+     * @param mapper the {@link Function} applied to each item; must be free of side effects
+     * @param <T> the type of the items
+     * @param <R> the type of the results
+     * @return the results, in no particular order
+     */
+    public <T, R> List<R> map(final Collection<T> items, final Function<? super T, ? extends R> mapper) {
+        final var strategy = strategyFor(items.size());
+
+        executions.get(strategy).increment();
+
+        switch (strategy) {
+            case SEQUENTIAL:
+                return items.stream().map(mapper).collect(toList());
+            case BATCHED:
+                return mapBatched(new ArrayList<>(items), mapper);
+            default:
+                return pool.submit(() -> items.parallelStream().<R>map(mapper).collect(toList())).join();
+        }
+    }
+
+    private <T, R> List<R> mapBatched(final List<T> items, final Function<? super T, ? extends R> mapper) {
+        final var batches = new ArrayList<ForkJoinTask<List<R>>>(items.size() / batchSize + 1);
+
+        for (int from = 0; from < items.size(); from += batchSize) {
+            final var batch = items.subList(from, Math.min(from + batchSize, items.size()));
+
+            batches.add(pool.submit(() -> batch.stream().map(mapper).collect(toList())));
+        }
+
+        final var results = new ArrayList<R>(items.size());
+
+        batches.forEach(batch -> results.addAll(batch.join()));
+
+        return results;
+    }
+}
@@ -4,18 +4,25 @@ import griz.shop.server.domain.Cart;
 import griz.shop.server.domain.CartItem;
 import griz.shop.server.domain.Receipt;
 import griz.shop.server.domain.ReceiptItem;
+import griz.shop.server.domain.ReceiptTotal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Optional;
 import java.util.function.Function;
-import java.util.function.UnaryOperator;
-
-import static java.util.stream.Collectors.toSet;
 
 /**
  * Simple service for completing {@link Cart} checkout.
  *
- * <p>When calculating the total price for each type of item, the following bulk discounts apply:
+ * <p>When calculating the total price for each type of item, the bulk discounts of the {@link DiscountEngine} apply.
+ * By default:
  *
  * Quantity:
  * 1 – 10:    No discount
@@ -23,74 +30,205 @@ import static java.util.stream.Collectors.toSet;
  * 101 – 1000 15% discount
  * 1001+      25% discount
  *
+ * <p>Line totals are calculated in fixed-point {@code long} arithmetic on the unscaled price, with every product
+ * checked for overflow. Only lines whose products overflow are calculated with {@link BigDecimal}. Both paths produce
+ * identical values, including the scale. Pricing of carts is executed by the {@link CheckoutExecutor}, which picks
+ * sequential, batched or parallel execution from the number of items.
+ *
+ * <p>Every {@link #checkout() checkout} of a {@code Cart} is timed under {@value #METRIC_CHECKOUT}.
+ *
  * @author nichollsmc
  */
 @Singleton
 public class CheckoutService {
 
-    private static final BigDecimal TEN_PERCENT_DISCOUNT         = new BigDecimal("0.10");
-    private static final BigDecimal FIFTEEN_PERCENT_DISCOUNT     = new BigDecimal("0.15");
-    private static final BigDecimal TWENTY_FIVE_PERCENT_DISCOUNT = new BigDecimal("0.25");
+    /**
+     * Defines the name of the timer of checking out a {@link Cart}.
+     */
+    public static final String METRIC_CHECKOUT = "shop.checkout";
+
+    private static final int MAX_FIXED_POINT_SCALE = 18;
+
+    private final CheckoutExecutor checkoutExecutor;
+    private final DiscountEngine   discountEngine;
+    private final Timer            checkoutTimer;
+
+    @Inject
+    public CheckoutService(final CheckoutExecutor checkoutExecutor,
+                           final DiscountEngine discountEngine,
+                           final MeterRegistry meterRegistry) {
+        this.checkoutExecutor = checkoutExecutor;
+        this.discountEngine   = discountEngine;
+        this.checkoutTimer    = meterRegistry.timer(METRIC_CHECKOUT);
+    }
 
     /**
      * {@link Function} that accepts a {@link Cart} and produces a {@link Receipt} with calculated totals.
      *
+     * <p>A {@code Cart} produces its receipt from the totals it keeps for priced items, and only its unpriced items
+     * and items priced with an earlier generation of discount tiers are priced here.
+     *
      * @return the {@code Receipt} for the {@code Cart}
      */
     public Function<Cart, Receipt> checkout() {
+        final var checkout = checkoutUnpriced();
+
+        return cart -> checkoutTimer.record(() -> checkout.apply(cart));
+    }
+
+    private Function<Cart, Receipt> checkoutUnpriced() {
+        final var pricing = priceItem();
+
         return cart -> {
-            final var receiptItems =
-                cart.getItems().stream().parallel()
-                    .map(toReceiptItem().andThen(applyDiscount()))
-                    .collect(toSet());
+            final var generation = discountEngine.generation();
 
-            final var receiptTotal =
-                receiptItems.stream()
-                    .map(ReceiptItem::getTotalPrice)
-                    .reduce(new BigDecimal(0), BigDecimal::add);
+            if (cart.isPriced(generation)) {
+                return cart.toReceipt();
+            }
+
+            final var receipt       = cart.toReceipt(generation);
+            final var unpricedItems = checkoutExecutor.map(cart.getUnpricedItems(generation), pricing);
+            final var receiptItems  = new ArrayList<>(receipt.getItems());
+
+            receiptItems.addAll(unpricedItems);
 
             return Receipt.builder()
                     .items(receiptItems)
-                    .totalPrice(receiptTotal)
+                    .totalPrice(unpricedItems.stream()
+                                    .map(ReceiptItem::getTotalPrice)
+                                    .reduce(receipt.getTotalPrice(), BigDecimal::add))
+                    .build();
+        };
+    }
+
+    /**
+     * {@link Function} that accepts the pages of a streamed {@link Cart} and produces the lines of its
+     * {@link Receipt}.
+     *
+     * <p>The {@link ReceiptItem}s of each page are emitted as soon as the page has been checked out, followed by a
+     * single {@link ReceiptTotal} once all pages have been, so that no more than a page of the {@code Cart} and its
+     * receipt is held at any time. Pages are checked out as by {@link #checkout()}, but are not timed individually.
+     *
+     * @return the {@code ReceiptItem}s and the {@code ReceiptTotal} of the {@code Cart}
+     */
+    public Function<Flowable<Cart>, Flowable<Object>> streamingCheckout() {
+        final var checkout = checkoutUnpriced();
+
+        return pages -> Flowable.defer(() -> {
+            final var total = ReceiptTotal.builder().totalPrice(BigDecimal.ZERO).build();
+
+            return pages
+                    .concatMapIterable(page -> {
+                        final var receipt = checkout.apply(page);
+
+                        total.setItemCount(total.getItemCount() + receipt.getItems().size());
+                        total.setTotalPrice(total.getTotalPrice().add(receipt.getTotalPrice()));
+
+                        return receipt.getItems();
+                    })
+                    .cast(Object.class)
+                    .concatWith(Single.fromCallable(() -> total));
+        });
+    }
+
+    /**
+     * {@link Function} that accepts a {@link CartItem} and produces the {@link ReceiptItem} for it, with the bulk
+     * discount for its quantity applied and the generation of the discount tiers recorded.
+     *
+     * <p>The generation is read before the discount, so that a line priced during a reload of the tiers records the
+     * earlier generation and is priced again at checkout, rather than keeping a stale total under the later one.
+     *
+     * @return the {@code ReceiptItem} for the {@code CartItem}
+     */
+    public Function<CartItem, ReceiptItem> priceItem() {
+        return cartItem -> {
+            final var generation = discountEngine.generation();
+            final var quantity   = cartItem.getQuantity();
+            final var price      = cartItem.getPricePerItem();
+            final var discount   = discountEngine.discountFor(cartItem.getName(), quantity);
+
+            final var totalPrice =
+                Optional.of(quantity)
+                    .filter(q -> q.bitLength() < Long.SIZE)
+                    .flatMap(q -> fixedPointTotal(price, q.longValue(), discount))
+                    .orElseGet(() -> decimalTotal(price, quantity, discount));
+
+            return ReceiptItem.builder()
+                    .name(cartItem.getName())
+                    .quantity(quantity)
+                    .totalPrice(totalPrice)
+                    .generation(generation)
                     .build();
         };
     }
 
-    private Function<CartItem, ReceiptItem> toReceiptItem() {
+    /**
+     * {@link Function} that prices a {@link CartItem} using {@link BigDecimal} arithmetic only.
+     *
+     * <p>Reference implementation for {@link #priceItem()}.
+     *
+     * @return the {@code ReceiptItem} for the {@code CartItem}
+     */
+    Function<CartItem, ReceiptItem> priceItemDecimal() {
         return cartItem ->
             ReceiptItem.builder()
                 .name(cartItem.getName())
                 .quantity(cartItem.getQuantity())
-                .totalPrice(cartItem.getPricePerItem().multiply(new BigDecimal(cartItem.getQuantity())))
+                .generation(discountEngine.generation())
+                .totalPrice(decimalTotal(cartItem.getPricePerItem(),
+                                         cartItem.getQuantity(),
+                                         discountEngine.discountFor(cartItem.getName(),
+                                                                    cartItem.getQuantity())))
                 .build();
     }
 
-    private UnaryOperator<ReceiptItem> applyDiscount() {
-        return receiptItem -> {
-            final var quantity = receiptItem.getQuantity().intValue();
+    Function<Cart, Receipt> checkout(final Function<CartItem, ReceiptItem> pricing) {
+        return cart -> {
+            final var receiptItems = checkoutExecutor.map(cart.getItems(), pricing);
 
-            if (quantity <= 10) {
-                return receiptItem;
-            }
+            final var receiptTotal =
+                receiptItems.stream()
+                    .map(ReceiptItem::getTotalPrice)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-            var discount = new BigDecimal(0);
+            return Receipt.builder()
+                    .items(receiptItems)
+                    .totalPrice(receiptTotal)
+                    .build();
+        };
+    }
 
-            if (quantity > 10 && quantity <= 100) {
-                discount = TEN_PERCENT_DISCOUNT;
-            } else if (quantity > 100 && quantity <= 1000) {
-                discount = FIFTEEN_PERCENT_DISCOUNT;
-            } else if (quantity > 1000) {
-                discount = TWENTY_FIVE_PERCENT_DISCOUNT;
-            }
+    /*
+     * price * quantity * (1 - rate) on unscaled longs. The result has the scale of the price plus the scale of the
+     * rate, which is the scale BigDecimal#subtract produces for total - total * rate.
+     */
+    private static Optional<BigDecimal> fixedPointTotal(final BigDecimal price,
+                                                        final long quantity,
+                                                        final Discount discount) {
+        final var scale = price.scale() + discount.scale;
 
-            final var discountedTotal = receiptItem.getTotalPrice();
+        if (price.scale() < 0 || scale > MAX_FIXED_POINT_SCALE) {
+            return Optional.empty();
+        }
 
-            return ReceiptItem.builder()
-                    .name(receiptItem.getName())
-                    .quantity(receiptItem.getQuantity())
-                    .totalPrice(discountedTotal.subtract(discountedTotal.multiply(discount)))
-                    .build();
+        final var unscaledPrice = price.unscaledValue();
 
-        };
+        if (unscaledPrice.bitLength() >= Long.SIZE) {
+            return Optional.empty();
+        }
+
+        try {
+            final var total = Math.multiplyExact(unscaledPrice.longValue(), quantity);
+
+            return Optional.of(BigDecimal.valueOf(Math.multiplyExact(total, discount.retained), scale));
+        } catch (ArithmeticException overflow) {
+            return Optional.empty();
+        }
+    }
+
+    private static BigDecimal decimalTotal(final BigDecimal price, final BigInteger quantity, final Discount discount) {
+        final var total = price.multiply(new BigDecimal(quantity));
+
+        return discount == Discount.NONE ? total : total.subtract(total.multiply(discount.rate));
     }
 }
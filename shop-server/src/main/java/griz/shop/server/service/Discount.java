@@ -0,0 +1,44 @@
+package griz.shop.server.service;
+
+import java.math.BigDecimal;
+
+import static java.lang.String.format;
+
+/**
+ * A bulk discount rate. The retained fraction (1 - rate) is kept as an unscaled long in the scale of the rate, for
+ * fixed-point pricing.
+ *
+ * @author nichollsmc
+ */
+final class Discount {
+
+    /**
+     * Defines the absence of a discount.
+     */
+    static final Discount NONE = new Discount(BigDecimal.ZERO);
+
+    final BigDecimal rate;
+    final int        scale;
+    final long       retained;
+
+    private Discount(final BigDecimal rate) {
+        this.rate     = rate;
+        this.scale    = rate.scale();
+        this.retained = BigDecimal.ONE.subtract(rate).movePointRight(scale).longValueExact();
+    }
+
+    /**
+     * Returns the {@code Discount} for the provided rate.
+     *
+     * @param rate the rate, from 0 (inclusive) to 1 (exclusive)
+     * @return the {@code Discount}
+     * @throws IllegalArgumentException if the rate is out of bounds
+     */
+    static Discount of(final BigDecimal rate) {
+        if (rate.signum() < 0 || rate.compareTo(BigDecimal.ONE) >= 0 || rate.scale() < 0) {
+            throw new IllegalArgumentException(format("Invalid discount rate %s.", rate.toPlainString()));
+        }
+
+        return new Discount(rate);
+    }
+}
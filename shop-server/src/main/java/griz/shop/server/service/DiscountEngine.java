@@ -0,0 +1,225 @@
+package griz.shop.server.service;
+
+import griz.shop.server.domain.Cart;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.annotation.Scheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Bulk discount tiers used for pricing, optionally per item.
+ *
+ * <p>Tiers are configured under {@code shop.checkout.discounts.tiers}, in the format of {@link DiscountTable}. The
+ * {@value #TIERS_DEFAULT} entry applies to every item, and any other entry to the item of that name (ignoring case).
+ * Tiers may also be read from the properties file {@code shop.checkout.discounts.file}, whose entries replace the
+ * configured entries of the same name. The file is checked for changes every
+ * {@code shop.checkout.discounts.reload-interval}, so that tiers, such as those of a season, can be changed without a
+ * redeploy.
+ *
+ * <p>All tiers are compiled into an immutable snapshot that is swapped atomically, and a lookup reads the snapshot
+ * once, so a price is never calculated from a mix of old and new tiers. A file that is missing or fails to compile is
+ * rejected as a whole, keeping the current tiers, or the configured tiers at startup, and is counted under
+ * {@value #METRIC_RELOAD_FAILURES}.
+ *
+ * <p>Every snapshot has a {@link #generation() generation}, which priced lines record so that lines priced with other
+ * tiers can be told apart and priced again.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+public class DiscountEngine {
+
+    /**
+     * Defines the tiers used when no {@value #TIERS_DEFAULT} tiers are configured.
+     */
+    public static final String DEFAULT_TIERS = "11:0.10, 101:0.15, 1001:0.25";
+
+    /**
+     * Defines the name of the entry holding the tiers that apply to every item.
+     */
+    public static final String TIERS_DEFAULT = "default";
+
+    /**
+     * Defines the name of the counter of rejected reloads of the tiers file.
+     */
+    public static final String METRIC_RELOAD_FAILURES = "shop.checkout.discounts.reload.failures";
+
+    private static final Logger LOG = LoggerFactory.getLogger(DiscountEngine.class);
+
+    private final Map<String, String> configuredTiers;
+    private final Optional<Path>      file;
+    private final Counter             reloadFailures;
+
+    private volatile Tiers tiers;
+    private FileTime       lastModified;
+
+    @Inject
+    public DiscountEngine(@Property(name = "shop.checkout.discounts.tiers") @Nullable final Map<String, String> tiers,
+                          @Value("${shop.checkout.discounts.file:}") final String file,
+                          final MeterRegistry meterRegistry) {
+        this.configuredTiers = tiers == null ? Map.of() : Map.copyOf(tiers);
+        this.file            = Optional.of(file).filter(f -> !f.isBlank()).map(Path::of);
+        this.reloadFailures  = meterRegistry.counter(METRIC_RELOAD_FAILURES);
+        this.tiers           = this.file.map(this::load).orElseGet(() -> Tiers.compile(configuredTiers, Map.of()));
+    }
+
+    private Tiers load(final Path path) {
+        try {
+            final var modified = lastModifiedOf(path);
+            final var loaded   = Tiers.compile(configuredTiers, read(path));
+
+            lastModified = modified;
+
+            return loaded;
+        } catch (RuntimeException e) {
+            reloadFailures.increment();
+            LOG.warn("Rejected discount tiers from {}, using the configured tiers: {}", path, e.getMessage());
+
+            return Tiers.compile(configuredTiers, Map.of());
+        }
+    }
+
+    /**
+     * Reloads the tiers file if it changed since it was last read.
+     */
+    @Scheduled(fixedDelay = "${shop.checkout.discounts.reload-interval:30s}")
+    public synchronized void reload() {
+        file.ifPresent(path -> {
+            try {
+                final var modified = lastModifiedOf(path);
+
+                if (modified.equals(lastModified)) {
+                    return;
+                }
+
+                tiers        = Tiers.compile(configuredTiers, read(path));
+                lastModified = modified;
+                LOG.info("Reloaded discount tiers from {}", path);
+            } catch (RuntimeException e) {
+                reloadFailures.increment();
+                LOG.warn("Rejected discount tiers from {}, keeping the current tiers: {}", path, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Returns the generation of the current tiers.
+     *
+     * <p>The generation is a fingerprint of the compiled tiers, so it changes whenever a reload changes the price of
+     * any quantity, and is the same on every node and after a restart for the same tiers. It is never {@code 0}, which
+     * is the generation of lines priced before generations were recorded.
+     *
+     * @return the generation of the tiers
+     */
+    public long generation() {
+        return tiers.generation;
+    }
+
+    /**
+     * Returns the {@link Discount} for the provided quantity of the item with the provided name.
+     *
+     * @param name the name of the item
+     * @param quantity the quantity of the item
+     * @return the {@code Discount}
+     */
+    Discount discountFor(final String name, final BigInteger quantity) {
+        final var current = tiers;
+
+        if (current.items.isEmpty()) {
+            return current.defaults.forQuantity(quantity);
+        }
+
+        return current.items.getOrDefault(Cart.keyOf(name), current.defaults).forQuantity(quantity);
+    }
+
+    private static FileTime lastModifiedOf(final Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    private static Map<String, String> read(final Path path) {
+        try (var reader = Files.newBufferedReader(path)) {
+            final var properties = new Properties();
+            final var entries    = new HashMap<String, String>();
+
+            properties.load(reader);
+            properties.stringPropertyNames().forEach(name -> entries.put(name, properties.getProperty(name)));
+
+            return entries;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    private static final class Tiers {
+        private static final int FNV_OFFSET_BASIS = 0x811C9DC5;
+        private static final int FNV_PRIME        = 0x01000193;
+
+        private final DiscountTable              defaults;
+        private final Map<String, DiscountTable> items;
+        private final long                       generation;
+
+        private Tiers(final DiscountTable defaults, final Map<String, DiscountTable> items) {
+            this.defaults   = defaults;
+            this.items      = items;
+            this.generation = fingerprint(defaults, items);
+        }
+
+        static Tiers compile(final Map<String, String> configured, final Map<String, String> overrides) {
+            final var entries = new HashMap<>(configured);
+            final var items   = new HashMap<String, DiscountTable>();
+
+            entries.putAll(overrides);
+
+            final var defaults = DiscountTable.parse(entries.getOrDefault(TIERS_DEFAULT, DEFAULT_TIERS));
+
+            entries.forEach((name, tiers) -> {
+                if (!name.equals(TIERS_DEFAULT)) {
+                    items.put(Cart.keyOf(name), DiscountTable.parse(tiers));
+                }
+            });
+
+            return new Tiers(defaults, Map.copyOf(items));
+        }
+
+        /*
+         * 32-bit FNV-1a of the tables in a canonical order, kept below 2^32 so that it encodes in a short varint.
+         */
+        private static long fingerprint(final DiscountTable defaults, final Map<String, DiscountTable> items) {
+            final var text = new StringBuilder(TIERS_DEFAULT).append('=').append(defaults);
+
+            new TreeMap<>(items).forEach((name, table) -> text.append('\n').append(name).append('=').append(table));
+
+            var hash = FNV_OFFSET_BASIS;
+
+            for (final var b : text.toString().getBytes(UTF_8)) {
+                hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+            }
+
+            return hash == 0 ? 1 : Integer.toUnsignedLong(hash);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package griz.shop.server.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+import static java.lang.String.format;
+
+/**
+ * Bulk discount tiers compiled into a table of breakpoints.
+ *
+ * <p>Tiers are given as {@code minimum-quantity:rate} pairs separated by commas, e.g. {@code 11:0.10, 101:0.15}. A
+ * rate applies from its minimum quantity up to the minimum quantity of the next tier, and quantities below the first
+ * tier are not discounted. The minimum quantities are kept in a sorted array and looked up by binary search, so
+ * finding the discount for a quantity takes logarithmic time in the number of tiers.
+ *
+ * @author nichollsmc
+ */
+final class DiscountTable {
+
+    private final long[]     breakpoints;
+    private final Discount[] discounts;
+
+    private DiscountTable(final long[] breakpoints, final Discount[] discounts) {
+        this.breakpoints = breakpoints;
+        this.discounts   = discounts;
+    }
+
+    /**
+     * Compiles the provided tiers into a {@code DiscountTable}.
+     *
+     * @param tiers the tiers, as comma-separated {@code minimum-quantity:rate} pairs
+     * @return the {@code DiscountTable}
+     * @throws IllegalArgumentException if a tier is malformed, or two tiers have the same minimum quantity
+     */
+    static DiscountTable parse(final String tiers) {
+        final var sorted = new TreeMap<Long, Discount>();
+
+        Arrays.stream(tiers.split(","))
+            .map(String::trim)
+            .filter(tier -> !tier.isEmpty())
+            .forEach(tier -> {
+                final var pair = tier.split(":");
+
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException(format("Invalid discount tier '%s'.", tier));
+                }
+
+                final long minimumQuantity;
+                final BigDecimal rate;
+
+                try {
+                    minimumQuantity = Long.parseLong(pair[0].trim());
+                    rate            = new BigDecimal(pair[1].trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(format("Invalid discount tier '%s'.", tier), e);
+                }
+
+                if (minimumQuantity < 1) {
+                    throw new IllegalArgumentException(format("Invalid minimum quantity in discount tier '%s'.", tier));
+                }
+
+                if (sorted.put(minimumQuantity, Discount.of(rate)) != null) {
+                    throw new IllegalArgumentException(format("Duplicate discount tier for quantity %d.",
+                                                              minimumQuantity));
+                }
+            });
+
+        return new DiscountTable(sorted.keySet().stream().mapToLong(Long::longValue).toArray(),
+                                 sorted.values().toArray(Discount[]::new));
+    }
+
+    /**
+     * Returns the {@link Discount} for the provided quantity.
+     *
+     * @param quantity the quantity
+     * @return the {@code Discount} of the highest tier whose minimum quantity is not greater than the quantity, or
+     *         {@link Discount#NONE} if there is no such tier
+     */
+    Discount forQuantity(final BigInteger quantity) {
+        if (breakpoints.length == 0) {
+            return Discount.NONE;
+        }
+
+        if (quantity.bitLength() >= Long.SIZE) {
+            return quantity.signum() > 0 ? discounts[discounts.length - 1] : Discount.NONE;
+        }
+
+        final var index = Arrays.binarySearch(breakpoints, quantity.longValue());
+        final var tier  = index >= 0 ? index : -index - 2;
+
+        return tier >= 0 ? discounts[tier] : Discount.NONE;
+    }
+
+    /**
+     * Returns the tiers of the table in the format of {@link #parse(String)}, ordered by minimum quantity and with
+     * every rate in its configured scale, so that tables pricing every quantity alike have the same text.
+     *
+     * @return the tiers, as comma-separated {@code minimum-quantity:rate} pairs
+     */
+    @Override
+    public String toString() {
+        final var tiers = new StringBuilder();
+
+        for (int i = 0; i < breakpoints.length; i++) {
+            tiers.append(i == 0 ? "" : ", ")
+                .append(breakpoints[i])
+                .append(':')
+                .append(discounts[i].rate.toPlainString());
+        }
+
+        return tiers.toString();
+    }
+}
@@ -0,0 +1,361 @@
+package griz.shop.server.store;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.ReceiptItem;
+import io.micronaut.context.annotation.Value;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact, versioned binary encoding for {@link Cart}s and {@link CartItem}s.
+ *
+ * <p>Every encoding starts with a header of {@link #MAGIC}, the format version and the number of dictionary entries
+ * known to the encoder. Items are encoded as:
+ *
+ * <pre>
+ * quantity     varint
+ * price        scale byte, zig-zag varint of the unscaled value
+ *              (scale {@value #SCALE_DECIMAL_STRING} is followed by the decimal string of prices that do not fit)
+ * name         varint reference; 1..n into the dictionary, 0 is followed by a varint length and UTF-8 bytes
+ * total        byte 1 followed by the priced total in the encoding of the price, or byte 0 if unpriced
+ * generation   varint generation of the discount tiers of the priced total, following the total
+ * </pre>
+ *
+ * <p>The layout of an item is also relied upon by the Lua scripts of the {@link RedisHashCartStore}, which rewrite the
+ * quantity and total of stored items, so it can only change together with them and a new format version.
+ *
+ * <p>A cart is the header, a varint {@link Cart#getVersion() version}, a varint item count and the items. The
+ * dictionary of frequently used item names is read from {@code shop.cart.codec.dictionary} and must only ever be
+ * appended to, since stored references index into it.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+public class CartCodec {
+
+    /**
+     * Defines the first byte of every encoding produced by the codec.
+     */
+    public static final byte MAGIC = (byte) 0xCA;
+
+    private static final byte FORMAT_VERSION       = 1;
+    private static final int  SCALE_DECIMAL_STRING = 0xFF;
+
+    private final String[]             dictionary;
+    private final Map<String, Integer> dictionaryReferences;
+
+    @Inject
+    public CartCodec(@Value("${shop.cart.codec.dictionary:}") final String dictionary) {
+        this.dictionary =
+            Arrays.stream(dictionary.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toArray(String[]::new);
+
+        this.dictionaryReferences = new HashMap<>();
+
+        for (int i = 0; i < this.dictionary.length; i++) {
+            dictionaryReferences.putIfAbsent(this.dictionary[i], i + 1);
+        }
+    }
+
+    /**
+     * Encodes the {@link Cart}.
+     *
+     * @param cart the {@code Cart} to encode
+     * @return the encoded bytes
+     */
+    public byte[] encode(final Cart cart) {
+        final var items  = cart.getItems();
+        final var output = new Output(16 + items.size() * 24);
+
+        writeHeader(output);
+        output.writeVarint(cart.getVersion());
+        output.writeVarint(items.size());
+        items.forEach(item -> writeItem(output, item, cart.findReceiptItemByName(item.getName()).orElse(null)));
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes a {@link Cart} produced by {@link #encode(Cart)}.
+     *
+     * @param bytes the encoded bytes
+     * @return the decoded {@code Cart}
+     * @throws IllegalArgumentException if the bytes are not a supported encoding
+     */
+    public Cart decode(final byte[] bytes) {
+        final var input = new Input(bytes);
+
+        readHeader(input);
+
+        final var version = input.readVarint();
+        final var count   = (int) input.readVarint();
+        final var cart    = new Cart();
+
+        for (int i = 0; i < count; i++) {
+            readItem(input, cart);
+        }
+
+        cart.setVersion(version);
+
+        return cart;
+    }
+
+    /**
+     * Encodes a single {@link CartItem} together with its priced {@link ReceiptItem}.
+     *
+     * @param cartItem the {@code CartItem} to encode
+     * @param receiptItem the {@code ReceiptItem} for the {@code CartItem}, or {@code null} if it has not been priced
+     * @return the encoded bytes
+     */
+    public byte[] encodeItem(final CartItem cartItem, final ReceiptItem receiptItem) {
+        final var output = new Output(48);
+
+        writeHeader(output);
+        writeItem(output, cartItem, receiptItem);
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes the {@link CartItem} produced by {@link #encodeItem(CartItem, ReceiptItem)}.
+     *
+     * @param bytes the encoded bytes
+     * @return the decoded {@code CartItem}
+     * @throws IllegalArgumentException if the bytes are not a supported encoding
+     */
+    public CartItem decodeItem(final byte[] bytes) {
+        final var input = new Input(bytes);
+
+        readHeader(input);
+
+        return readItem(input);
+    }
+
+    /**
+     * Decodes a {@link CartItem} produced by {@link #encodeItem(CartItem, ReceiptItem)} and adds it to the
+     * {@link Cart}, together with its priced {@link ReceiptItem} if one was encoded.
+     *
+     * @param bytes the encoded bytes
+     * @param cart the {@code Cart} to add the item to
+     * @throws IllegalArgumentException if the bytes are not a supported encoding
+     */
+    public void decodeItem(final byte[] bytes, final Cart cart) {
+        final var input = new Input(bytes);
+
+        readHeader(input);
+        readItem(input, cart);
+    }
+
+    private void writeHeader(final Output output) {
+        output.writeByte(MAGIC);
+        output.writeByte(FORMAT_VERSION);
+        output.writeVarint(dictionary.length);
+    }
+
+    private void readHeader(final Input input) {
+        if (input.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a cart encoding.");
+        }
+
+        final var version = input.readByte();
+
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException(format("Unsupported cart encoding version %d.", version));
+        }
+
+        final var dictionarySize = input.readVarint();
+
+        if (dictionarySize > dictionary.length) {
+            throw new IllegalArgumentException(format("Cart encoded with %d dictionary entries, only %d are known.",
+                                                      dictionarySize, dictionary.length));
+        }
+    }
+
+    private void writeItem(final Output output, final CartItem cartItem, final ReceiptItem receiptItem) {
+        output.writeVarint(cartItem.getQuantity().longValueExact());
+        writeDecimal(output, cartItem.getPricePerItem());
+
+        final var reference = dictionaryReferences.get(cartItem.getName());
+
+        if (reference != null) {
+            output.writeVarint(reference);
+        } else {
+            output.writeVarint(0);
+            output.writeString(cartItem.getName());
+        }
+
+        if (receiptItem != null) {
+            output.writeByte((byte) 1);
+            writeDecimal(output, receiptItem.getTotalPrice());
+            output.writeVarint(receiptItem.getGeneration());
+        } else {
+            output.writeByte((byte) 0);
+        }
+    }
+
+    private CartItem readItem(final Input input) {
+        final var quantity  = BigInteger.valueOf(input.readVarint());
+        final var price     = readDecimal(input);
+        final var reference = input.readVarint();
+
+        if (reference < 0 || reference > dictionary.length) {
+            throw new IllegalArgumentException(format("Unknown dictionary reference %d in cart encoding.", reference));
+        }
+
+        final var name = reference == 0 ? input.readString() : dictionary[(int) reference - 1];
+
+        return CartItem.builder()
+                .name(name)
+                .pricePerItem(price)
+                .quantity(quantity)
+                .build();
+    }
+
+    private void readItem(final Input input, final Cart cart) {
+        final var cartItem = readItem(input);
+
+        if (input.readByte() == 0) {
+            cart.addItem(cartItem);
+            return;
+        }
+
+        cart.addItem(cartItem, ReceiptItem.builder()
+                                    .name(cartItem.getName())
+                                    .quantity(cartItem.getQuantity())
+                                    .totalPrice(readDecimal(input))
+                                    .generation(input.readVarint())
+                                    .build());
+    }
+
+    private static void writeDecimal(final Output output, final BigDecimal value) {
+        if (value.scale() >= 0 && value.scale() < SCALE_DECIMAL_STRING && value.unscaledValue().bitLength() < 64) {
+            output.writeByte((byte) value.scale());
+            output.writeVarint(zigZag(value.unscaledValue().longValue()));
+        } else {
+            output.writeByte((byte) SCALE_DECIMAL_STRING);
+            output.writeString(value.toString());
+        }
+    }
+
+    private static BigDecimal readDecimal(final Input input) {
+        final var scale = input.readByte() & 0xFF;
+
+        return scale == SCALE_DECIMAL_STRING
+                ? new BigDecimal(input.readString())
+                : BigDecimal.valueOf(unZigZag(input.readVarint()), scale);
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /*
+     * Minimal growable byte buffer; avoids the synchronization of ByteArrayOutputStream on the hot path.
+     */
+    private static final class Output {
+        private byte[] buffer;
+        private int    position;
+
+        Output(final int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(final byte value) {
+            ensureCapacity(1);
+            buffer[position++] = value;
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(10);
+
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+
+            buffer[position++] = (byte) value;
+        }
+
+        void writeString(final String value) {
+            final var bytes = value.getBytes(UTF_8);
+
+            writeVarint(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(final int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] buffer;
+        private int          position;
+
+        Input(final byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Truncated cart encoding.");
+            }
+
+            return buffer[position++];
+        }
+
+        long readVarint() {
+            long value = 0;
+
+            for (int shift = 0; shift < 64; shift += 7) {
+                final var b = readByte();
+
+                value |= (long) (b & 0x7F) << shift;
+
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IllegalArgumentException("Malformed varint in cart encoding.");
+        }
+
+        String readString() {
+            final var length = (int) readVarint();
+
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("Truncated cart encoding.");
+            }
+
+            final var value = new String(buffer, position, length, UTF_8);
+
+            position += length;
+
+            return value;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package griz.shop.server.store;
+
+import static java.lang.String.format;
+
+/**
+ * Thrown when an update of a {@link griz.shop.server.domain.Cart} keeps conflicting with concurrent writes to the same
+ * cart, and has been abandoned after the configured number of attempts.
+ *
+ * @author nichollsmc
+ */
+public class CartConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CartConflictException(final String cartId, final int attempts) {
+        super(format("Cart '%s' was modified concurrently; update abandoned after %d attempts.", cartId, attempts));
+    }
+}
@@ -0,0 +1,99 @@
+package griz.shop.server.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import griz.shop.server.domain.Cart;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Optional;
+
+/**
+ * Bounded, in-process cache of deserialized {@link Cart}s kept in front of the {@link RedisHashCartStore}.
+ *
+ * <p>Each entry is stamped with the version of the cart it was loaded at. An entry is only served when its version
+ * matches the version currently held in Redis, which makes stale reads impossible while costing a single small read
+ * instead of loading the full hash. Eviction is frequency-aware (Window TinyLFU), so carts that are read often stay
+ * resident while one-off carts are dropped first.
+ *
+ * <p>Nodes that mutate a cart publish its identifier on {@value #CHANNEL_INVALIDATIONS}, and every node evicts the
+ * entry on receipt, so memory is not held by entries that can no longer be served.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+@Requires(property = CartStore.PROPERTY_MODE, value = RedisHashCartStore.MODE, defaultValue = RedisHashCartStore.MODE)
+public class CartNearCache {
+
+    /**
+     * Defines the Redis pub/sub channel used for broadcasting invalidated cart identifiers.
+     */
+    public static final String CHANNEL_INVALIDATIONS = "shop:cart:invalidations";
+
+    private final Cache<String, Cart>                           carts;
+    private final StatefulRedisConnection<String, String>       connection;
+    private final StatefulRedisPubSubConnection<String, String> pubSubConnection;
+
+    @Inject
+    public CartNearCache(final StatefulRedisConnection<String, String> connection,
+                         final StatefulRedisPubSubConnection<String, String> pubSubConnection,
+                         @Value("${shop.cart.near-cache.maximum-size:10000}") final long maximumSize) {
+        this.carts            = Caffeine.newBuilder().maximumSize(maximumSize).build();
+        this.connection       = connection;
+        this.pubSubConnection = pubSubConnection;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        pubSubConnection.addListener(new RedisPubSubAdapter<>() {
+            @Override
+            public void message(final String channel, final String cartId) {
+                if (CHANNEL_INVALIDATIONS.equals(channel)) {
+                    carts.invalidate(cartId);
+                }
+            }
+        });
+        pubSubConnection.async().subscribe(CHANNEL_INVALIDATIONS);
+    }
+
+    /**
+     * Returns an {@link Optional} for the cached {@link Cart} if it was loaded at the provided version.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param version the current version of the {@code Cart}
+     * @return the {@code Optional} for the cached {@code Cart}
+     */
+    public Optional<Cart> find(final String cartId, final long version) {
+        return Optional.ofNullable(carts.getIfPresent(cartId))
+                .filter(cart -> cart.getVersion() == version);
+    }
+
+    /**
+     * Caches the {@link Cart} under its {@link Cart#getVersion() version}.
+     *
+     * <p>The cached instance is shared between requests and must not be mutated afterwards.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param cart the {@code Cart} to cache
+     */
+    public void put(final String cartId, final Cart cart) {
+        carts.asMap().merge(cartId, cart, (cached, loaded) ->
+            cached.getVersion() > loaded.getVersion() ? cached : loaded);
+    }
+
+    /**
+     * Evicts the {@link Cart} from this node and notifies other nodes to do the same.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     */
+    public void invalidate(final String cartId) {
+        carts.invalidate(cartId);
+        connection.async().publish(CHANNEL_INVALIDATIONS, cartId);
+    }
+}
@@ -0,0 +1,90 @@
+package griz.shop.server.store;
+
+import griz.shop.server.domain.Cart;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.core.serialize.JdkSerializer;
+import io.micronaut.core.serialize.ObjectSerializer;
+import io.micronaut.core.serialize.exceptions.SerializationException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Optional;
+
+/**
+ * {@link ObjectSerializer} for Redis backed HTTP sessions that writes {@link Cart}s using the {@link CartCodec}.
+ *
+ * <p>All other session attributes are delegated to the {@link JdkSerializer}. The two formats are told apart by the
+ * first byte, which is {@link CartCodec#MAGIC} for carts and the Java serialization stream magic otherwise.
+ *
+ * <p>The size of every {@code Cart} read from a session is recorded under {@value CartStore#METRIC_BYTES}.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+public class CartSessionSerializer implements ObjectSerializer {
+
+    private final CartCodec           cartCodec;
+    private final ObjectSerializer    delegate;
+    private final DistributionSummary cartBytes;
+
+    @Inject
+    public CartSessionSerializer(final CartCodec cartCodec, final MeterRegistry meterRegistry) {
+        this.cartCodec = cartCodec;
+        this.delegate  = new JdkSerializer();
+        this.cartBytes = meterRegistry.summary(CartStore.METRIC_BYTES,
+                                               CartStore.METRIC_TAG_STORE,
+                                               SessionCartStore.MODE);
+    }
+
+    @Override
+    public void serialize(final Object object, final OutputStream outputStream) throws SerializationException {
+        if (!(object instanceof Cart)) {
+            delegate.serialize(object, outputStream);
+            return;
+        }
+
+        try {
+            outputStream.write(cartCodec.encode((Cart) object));
+        } catch (IOException ioe) {
+            throw new SerializationException("Unable to serialize cart: " + ioe.getMessage(), ioe);
+        }
+    }
+
+    @Override
+    public <T> Optional<T> deserialize(final InputStream inputStream, final Class<T> requiredType)
+        throws SerializationException {
+        if (inputStream == null) {
+            return Optional.empty();
+        }
+
+        try {
+            final var input = new PushbackInputStream(inputStream);
+            final var first = input.read();
+
+            if (first == -1) {
+                return Optional.empty();
+            }
+
+            input.unread(first);
+
+            if ((byte) first != CartCodec.MAGIC) {
+                return delegate.deserialize(input, requiredType);
+            }
+
+            final var bytes = input.readAllBytes();
+
+            cartBytes.record(bytes.length);
+
+            return Optional.of(cartCodec.decode(bytes))
+                    .filter(requiredType::isInstance)
+                    .map(requiredType::cast);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SerializationException("Unable to deserialize cart: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package griz.shop.server.store;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.ReceiptItem;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Persistence for {@link Cart}s, addressed by the identifier of the cart.
+ *
+ * <p>Operations on a single {@link CartItem} are expected to touch only the state of that item, so that the cost of a
+ * mutation does not grow with the size of the {@code Cart}. Only {@link #findCart(String)} loads the full content.
+ *
+ * <p>Every implementation also provides a non-blocking view of the same state using {@link #reactive()}.
+ *
+ * <p>The implementation is selected using the {@value #PROPERTY_MODE} property.
+ *
+ * <p>Implementations time {@link #findCart(String)} under {@value #METRIC_FIND} and every write of the state of a
+ * {@code Cart} under {@value #METRIC_WRITE}, and record the number of items of every loaded {@code Cart} under
+ * {@value #METRIC_ITEMS}, and the size of every {@code Cart} read in its serialized form under
+ * {@value #METRIC_BYTES}, all tagged with the {@code store} mode.
+ *
+ * @author nichollsmc
+ */
+public interface CartStore {
+
+    /**
+     * Defines the property used for selecting the {@code CartStore} implementation.
+     */
+    String PROPERTY_MODE = "shop.cart.store";
+
+    /**
+     * Defines the name of the timer of loading the full content of a {@link Cart}.
+     */
+    String METRIC_FIND = "shop.cart.find";
+
+    /**
+     * Defines the name of the distribution summary of the number of items of loaded {@link Cart}s.
+     */
+    String METRIC_ITEMS = "shop.cart.items";
+
+    /**
+     * Defines the name of the distribution summary of the serialized size of loaded {@link Cart}s, in bytes.
+     */
+    String METRIC_BYTES = "shop.cart.bytes";
+
+    /**
+     * Defines the name of the timer of writing the state of a {@link Cart} to the store.
+     */
+    String METRIC_WRITE = "shop.cart.store.write";
+
+    /**
+     * Defines the name of the tag holding the {@value #PROPERTY_MODE} of the store that recorded a metric.
+     */
+    String METRIC_TAG_STORE = "store";
+
+    /**
+     * Defines the prefix of the identifiers of {@link Cart}s named by clients rather than by an HTTP session.
+     */
+    String CLIENT_CART_ID_PREFIX = "client:";
+
+    /**
+     * Returns the identifier of the {@link Cart} named by a client, such as the {@code cart_id} of a gRPC request.
+     *
+     * <p>Carts named by clients are kept apart from the carts of HTTP sessions, so a client cannot read or modify the
+     * {@code Cart} of a session by naming its session identifier.
+     *
+     * @param name the name of the {@code Cart} given by the client
+     * @return the identifier of the {@code Cart}
+     */
+    static String clientCartId(final String name) {
+        return CLIENT_CART_ID_PREFIX + name;
+    }
+
+    /**
+     * Loads the full content of the {@link Cart} for the provided identifier.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @return the {@code Cart}, or an empty {@code Cart} if none exists for the identifier
+     */
+    Cart findCart(String cartId);
+
+    /**
+     * Returns the current {@link Cart#getVersion() version} of the {@link Cart} for the provided identifier, without
+     * loading its content.
+     *
+     * <p>The version is advanced by every mutation, so a {@code Cart} with an unchanged version has unchanged content.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @return the version of the {@code Cart}
+     */
+    long findVersion(String cartId);
+
+    /**
+     * Returns an {@link Optional} for the {@link CartItem} with the provided name (ignoring case).
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param name the name of the {@code CartItem}
+     * @return the {@code Optional} for the {@code CartItem}
+     */
+    Optional<CartItem> findItem(String cartId, String name);
+
+    /**
+     * Adds the {@link CartItem} to the {@link Cart}, unless the {@code Cart} already has an item with the same name
+     * (ignoring case). The check and the write are a single atomic operation.
+     *
+     * <p>The priced {@link ReceiptItem} is stored with the item, so that the {@code Cart} can produce its receipt
+     * without pricing its items again.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param cartItem the {@code CartItem} to add
+     * @param receiptItem the {@code ReceiptItem} for the {@code CartItem}
+     * @return {@code true} if the item was added, or {@code false} if the {@code Cart} already has the item
+     */
+    boolean addItem(String cartId, CartItem cartItem, ReceiptItem receiptItem);
+
+    /**
+     * Sets the quantity of the {@link CartItem} with the provided name (ignoring case).
+     *
+     * <p>A quantity of zero removes the item, and a quantity out of bounds leaves the item unchanged. The checks and
+     * the write are a single atomic operation. The updated item is saved without a priced {@link ReceiptItem}, and is
+     * priced at checkout.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param name the name of the {@code CartItem}
+     * @param quantity the new quantity of the {@code CartItem}
+     * @return an {@code Optional} for the updated, removed or unchanged item, or an empty {@code Optional} if the
+     *         {@code Cart} has no such item
+     */
+    Optional<CartItem> updateItemQuantity(String cartId, String name, long quantity);
+
+    /**
+     * Applies a read-modify-write update to the named items of the {@link Cart}.
+     *
+     * <p>The update is applied to a private copy of the {@code Cart} and the {@link Cart#getVersion() version} it was
+     * read at. If the update changes the named items, their new state is written only if the stored {@code Cart} is
+     * still at that version; otherwise the update is applied again to a new copy, up to a bounded number of attempts.
+     * The update may therefore be applied more than once and must not have side effects outside the {@code Cart}.
+     * Changes to items that are not named are not saved. Once written, the copy is the state of the {@code Cart}
+     * produced by the update, so the update may return it as part of its result.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param names the names of the items read and written by the update
+     * @param update the update, returning the result of the operation
+     * @param <T> the type of the result
+     * @return the result of the update that was saved
+     * @throws CartConflictException if every attempt conflicted with a concurrent write
+     */
+    <T> T update(String cartId, Collection<String> names, Function<Cart, T> update);
+
+    /**
+     * Removes the {@link CartItem} with the provided name (ignoring case) from the {@link Cart}.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param name the name of the {@code CartItem} to remove
+     * @return an {@code Optional} for the item that was removed
+     */
+    Optional<CartItem> removeItem(String cartId, String name);
+
+    /**
+     * Removes all items from the {@link Cart}.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     */
+    void clear(String cartId);
+
+    /**
+     * Returns the non-blocking view of this {@code CartStore}.
+     *
+     * @return the {@link ReactiveCartStore}
+     */
+    ReactiveCartStore reactive();
+}
@@ -0,0 +1,117 @@
+package griz.shop.server.store;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.ReceiptItem;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Non-blocking view of a {@link CartStore}, obtained using {@link CartStore#reactive()}.
+ *
+ * <p>Operations have the same semantics as their blocking counterparts, and nothing is read or written until the
+ * returned source is subscribed to.
+ *
+ * @author nichollsmc
+ */
+public interface ReactiveCartStore {
+
+    /**
+     * Loads the full content of the {@link Cart} for the provided identifier.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @return a {@link Single} emitting the {@code Cart}, or an empty {@code Cart} if none exists for the identifier
+     */
+    Single<Cart> findCart(String cartId);
+
+    /**
+     * Returns the current version of the {@link Cart}, as described by {@link CartStore#findVersion(String)}.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @return a {@link Single} emitting the version of the {@code Cart}
+     */
+    Single<Long> findVersion(String cartId);
+
+    /**
+     * Streams the content of the {@link Cart} for the provided identifier in pages, without loading the full
+     * {@code Cart}.
+     *
+     * <p>Each page is a {@code Cart} holding some of the items with their priced {@link ReceiptItem}s. Pages are not
+     * a snapshot; an item modified while the {@code Cart} is streamed may be missing from the pages or be included
+     * more than once.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param pageSize the number of items per page
+     * @return a {@link Flowable} emitting the pages of the {@code Cart}, or no pages if none exists for the identifier
+     */
+    Flowable<Cart> streamCart(String cartId, int pageSize);
+
+    /**
+     * Finds the {@link CartItem} with the provided name (ignoring case).
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param name the name of the {@code CartItem}
+     * @return a {@link Maybe} emitting the {@code CartItem}, or completing empty if the {@code Cart} has no such item
+     */
+    Maybe<CartItem> findItem(String cartId, String name);
+
+    /**
+     * Adds the {@link CartItem} with its priced {@link ReceiptItem} to the {@link Cart}, unless the {@code Cart}
+     * already has an item with the same name (ignoring case), as described by
+     * {@link CartStore#addItem(String, CartItem, ReceiptItem)}.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param cartItem the {@code CartItem} to add
+     * @param receiptItem the {@code ReceiptItem} for the {@code CartItem}
+     * @return a {@link Single} emitting {@code true} if the item was added, otherwise {@code false}
+     */
+    Single<Boolean> addItem(String cartId, CartItem cartItem, ReceiptItem receiptItem);
+
+    /**
+     * Sets the quantity of the {@link CartItem} with the provided name (ignoring case), as described by
+     * {@link CartStore#updateItemQuantity(String, String, long)}.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param name the name of the {@code CartItem}
+     * @param quantity the new quantity of the {@code CartItem}
+     * @return a {@link Maybe} emitting the updated, removed or unchanged item, or completing empty if the {@code Cart}
+     *         has no such item
+     */
+    Maybe<CartItem> updateItemQuantity(String cartId, String name, long quantity);
+
+    /**
+     * Applies a read-modify-write update to the named items of the {@link Cart}, as described by
+     * {@link CartStore#update(String, Collection, Function)}.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param names the names of the items read and written by the update
+     * @param update the update, returning the result of the operation
+     * @param <T> the type of the result
+     * @return a {@link Single} emitting the result of the update that was saved, or signalling a
+     *         {@link CartConflictException} if every attempt conflicted with a concurrent write
+     */
+    <T> Single<T> update(String cartId, Collection<String> names, Function<Cart, T> update);
+
+    /**
+     * Removes the {@link CartItem} with the provided name (ignoring case) from the {@link Cart}.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @param name the name of the {@code CartItem} to remove
+     * @return a {@link Maybe} emitting the item that was removed, or completing empty if the {@code Cart} has no such
+     *         item
+     */
+    Maybe<CartItem> removeItem(String cartId, String name);
+
+    /**
+     * Removes all items from the {@link Cart}.
+     *
+     * @param cartId the identifier of the {@code Cart}
+     * @return a {@link Completable} completing once the items have been removed
+     */
+    Completable clear(String cartId);
+}
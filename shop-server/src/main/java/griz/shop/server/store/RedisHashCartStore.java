@@ -0,0 +1,625 @@
+package griz.shop.server.store;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.ReceiptItem;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanStream;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.reactive.RedisReactiveCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import griz.shop.server.metrics.Timings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.session.SessionConfiguration;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static griz.shop.server.domain.CartItem.ITEM_MAX_QUANTITY;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * {@link CartStore} that keeps each {@link Cart} in a Redis hash with one field per {@link CartItem}.
+ *
+ * <p>Adding, updating or removing an item writes a single field and looking up an item reads a single field, so the
+ * cost of a mutation is independent of the number of items in the {@code Cart}. The hash expires together with the
+ * HTTP session that owns it. Item fields hold the {@link CartCodec} encoding of the item and its priced total, so
+ * loading a {@code Cart} restores its receipt without pricing the items again.
+ *
+ * <p>Every write is executed by a Lua script, which changes the hash and advances a version counter stored next to it
+ * atomically. Adding an item, setting its quantity and removing it are each a single script, {@value #SCRIPT_ADD},
+ * {@value #SCRIPT_UPDATE_QUANTITY} and {@value #SCRIPT_REMOVE}, which validates the operation against the stored item
+ * and writes it in one round trip. The scripts are loaded on startup and invoked by their digest. Lua cannot price an
+ * item exactly, so setting the quantity stores the item without a priced total, and it is priced at checkout; that
+ * script is the only one to rewrite a value encoded by the {@link CartCodec}, in place of its quantity and total.
+ *
+ * <p>Full reads fetch the version before the hash, so a {@code Cart} is never older than the version it is stamped
+ * with, which allows the {@link CartNearCache} to serve it for as long as the version is unchanged.
+ *
+ * <p>The version also serves as the stamp for optimistic concurrency control. An
+ * {@link #update(String, Collection, Function) update}, written by the {@value #SCRIPT_WRITE} script, is applied to a
+ * full read of the {@code Cart}, served by the near cache while the version is unchanged, and its write only succeeds
+ * if the version is still the one read; otherwise it is retried against the new state, up to
+ * {@code shop.cart.update.max-attempts} attempts. Conflicts, retries and
+ * abandoned updates are counted under {@value #METRIC_CONFLICTS}, {@value #METRIC_RETRIES} and
+ * {@value #METRIC_ABORTED}.
+ *
+ * <p>Full reads are timed and sized as described by {@link CartStore}; the serialized size is the total size of the
+ * item fields.
+ *
+ * <p>The {@link #reactive() reactive} view issues the same commands using the reactive API of Lettuce over the same
+ * connection, so a request waiting on Redis does not hold a thread.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+@Requires(property = CartStore.PROPERTY_MODE, value = RedisHashCartStore.MODE, defaultValue = RedisHashCartStore.MODE)
+public class RedisHashCartStore implements CartStore {
+
+    /**
+     * Defines the value of {@value CartStore#PROPERTY_MODE} that selects this store.
+     */
+    public static final String MODE = "redis-hash";
+
+    /**
+     * Defines the name of the counter of updates whose write found the cart at a newer version.
+     */
+    public static final String METRIC_CONFLICTS = "shop.cart.update.conflicts";
+
+    /**
+     * Defines the name of the counter of updates that were applied again after a conflict.
+     */
+    public static final String METRIC_RETRIES = "shop.cart.update.retries";
+
+    /**
+     * Defines the name of the counter of updates that were abandoned after conflicting on every attempt.
+     */
+    public static final String METRIC_ABORTED = "shop.cart.update.aborted";
+
+    static final String SCRIPT_WRITE           = "redis/cart-write.lua";
+    static final String SCRIPT_ADD             = "redis/cart-add.lua";
+    static final String SCRIPT_UPDATE_QUANTITY = "redis/cart-update-quantity.lua";
+    static final String SCRIPT_REMOVE          = "redis/cart-remove.lua";
+
+    private static final String   KEY_FORMAT         = "shop:cart:{%s}";
+    private static final String   VERSION_KEY_FORMAT = KEY_FORMAT + ":version";
+    private static final byte[]   UNCONDITIONAL      = new byte[0];
+    private static final Conflict CONFLICT           = new Conflict();
+
+    private final StatefulRedisConnection<String, byte[]> connection;
+    private final RedisCommands<String, byte[]>           commands;
+    private final RedisReactiveCommands<String, byte[]>   reactiveCommands;
+    private final ReactiveCartStore                       reactive;
+    private final RedisScript                             writeScript;
+    private final RedisScript                             addScript;
+    private final RedisScript                             updateQuantityScript;
+    private final RedisScript                             removeScript;
+    private final CartCodec                               cartCodec;
+    private final CartNearCache                           nearCache;
+    private final long                                    expirySeconds;
+    private final int                                     maxAttempts;
+    private final Counter                                 conflicts;
+    private final Counter                                 retries;
+    private final Counter                                 aborted;
+    private final Timer                                   findTimer;
+    private final Timer                                   writeTimer;
+    private final DistributionSummary                     cartItems;
+    private final DistributionSummary                     cartBytes;
+
+    @Inject
+    public RedisHashCartStore(final RedisClient redisClient,
+                              final CartCodec cartCodec,
+                              final CartNearCache nearCache,
+                              final SessionConfiguration sessionConfiguration,
+                              final MeterRegistry meterRegistry,
+                              @Value("${shop.cart.update.max-attempts:5}") final int maxAttempts) {
+        this.connection           = redisClient.connect(new StringKeyByteArrayValueCodec());
+        this.commands             = connection.sync();
+        this.reactiveCommands     = connection.reactive();
+        this.reactive             = new Reactive();
+        this.writeScript          = RedisScript.of(SCRIPT_WRITE);
+        this.addScript            = RedisScript.of(SCRIPT_ADD);
+        this.updateQuantityScript = RedisScript.of(SCRIPT_UPDATE_QUANTITY);
+        this.removeScript         = RedisScript.of(SCRIPT_REMOVE);
+        this.cartCodec            = cartCodec;
+        this.nearCache            = nearCache;
+        this.expirySeconds        = sessionConfiguration.getMaxInactiveInterval().getSeconds();
+        this.maxAttempts          = Math.max(1, maxAttempts);
+        this.conflicts            = meterRegistry.counter(METRIC_CONFLICTS);
+        this.retries              = meterRegistry.counter(METRIC_RETRIES);
+        this.aborted              = meterRegistry.counter(METRIC_ABORTED);
+        this.findTimer            = meterRegistry.timer(METRIC_FIND, METRIC_TAG_STORE, MODE);
+        this.writeTimer           = meterRegistry.timer(METRIC_WRITE, METRIC_TAG_STORE, MODE);
+        this.cartItems            = meterRegistry.summary(METRIC_ITEMS, METRIC_TAG_STORE, MODE);
+        this.cartBytes            = meterRegistry.summary(METRIC_BYTES, METRIC_TAG_STORE, MODE);
+    }
+
+    @PostConstruct
+    void loadScripts() {
+        writeScript.load(commands);
+        addScript.load(commands);
+        updateQuantityScript.load(commands);
+        removeScript.load(commands);
+    }
+
+    @PreDestroy
+    void close() {
+        connection.close();
+    }
+
+    @Override
+    public Cart findCart(final String cartId) {
+        return loaded(findTimer.record(() -> {
+            final var version = findVersion(cartId);
+
+            return nearCache.find(cartId, version)
+                    .orElseGet(() -> cacheCart(cartId, version, commands.hgetall(keyOf(cartId))));
+        }));
+    }
+
+    @Override
+    public long findVersion(final String cartId) {
+        return Optional.ofNullable(commands.get(versionKeyOf(cartId)))
+                .map(RedisHashCartStore::parseVersion)
+                .orElse(0L);
+    }
+
+    @Override
+    public Optional<CartItem> findItem(final String cartId, final String name) {
+        return Optional.ofNullable(name)
+                .filter(n -> !n.isBlank())
+                .flatMap(n -> Optional.ofNullable(commands.hget(keyOf(cartId), Cart.keyOf(n))))
+                .map(cartCodec::decodeItem);
+    }
+
+    @Override
+    public boolean addItem(final String cartId, final CartItem cartItem, final ReceiptItem receiptItem) {
+        final var added =
+            writeTimer.record(() -> addScript.eval(commands, keysOf(cartId), addArgs(cartItem, receiptItem)));
+
+        return written(cartId, added) > 0;
+    }
+
+    @Override
+    public Optional<CartItem> updateItemQuantity(final String cartId, final String name, final long quantity) {
+        return Optional.ofNullable(name)
+                .filter(n -> !n.isBlank())
+                .flatMap(n -> Optional.ofNullable(writeTimer.record(() ->
+                    updateQuantityScript.evalValue(commands, keysOf(cartId), updateQuantityArgs(n, quantity)))))
+                .map(item -> written(cartId, item));
+    }
+
+    @Override
+    public <T> T update(final String cartId, final Collection<String> names, final Function<Cart, T> update) {
+        for (int attempt = 1; ; attempt++) {
+            final var original = findCart(cartId);
+            final var cart     = original.copy();
+            final var result   = update.apply(cart);
+
+            if (cart.equals(original)
+                    || written(cart, write(cartId, changesOf(cart, names).expecting(original.getVersion())))) {
+                return result;
+            }
+
+            onConflict(cartId, attempt);
+        }
+    }
+
+    @Override
+    public Optional<CartItem> removeItem(final String cartId, final String name) {
+        return Optional.ofNullable(writeTimer.record(() ->
+                    removeScript.evalValue(commands, keysOf(cartId), removeArgs(name))))
+                .map(item -> written(cartId, item));
+    }
+
+    @Override
+    public void clear(final String cartId) {
+        write(cartId, Changes.cleared());
+    }
+
+    @Override
+    public ReactiveCartStore reactive() {
+        return reactive;
+    }
+
+    private long write(final String cartId, final Changes changes) {
+        final var result =
+            writeTimer.record(() -> writeScript.eval(commands, keysOf(cartId), changes.toArgs(expirySeconds)));
+
+        if (result >= 0) {
+            nearCache.invalidate(cartId);
+        }
+
+        return result;
+    }
+
+    /*
+     * The write of an update is conditional on the version the cart was read at, so once written, the cart the update
+     * was applied to is the state at the next version.
+     */
+    private static boolean written(final Cart cart, final long removed) {
+        if (removed < 0) {
+            return false;
+        }
+
+        cart.setVersion(cart.getVersion() + 1);
+
+        return true;
+    }
+
+    private long written(final String cartId, final long added) {
+        if (added > 0) {
+            nearCache.invalidate(cartId);
+        }
+
+        return added;
+    }
+
+    private CartItem written(final String cartId, final byte[] item) {
+        nearCache.invalidate(cartId);
+
+        return cartCodec.decodeItem(item);
+    }
+
+    private byte[][] addArgs(final CartItem cartItem, final ReceiptItem receiptItem) {
+        return new byte[][] {
+            Cart.keyOf(cartItem.getName()).getBytes(UTF_8),
+            cartCodec.encodeItem(cartItem, receiptItem),
+            ascii(expirySeconds)
+        };
+    }
+
+    private byte[][] updateQuantityArgs(final String name, final long quantity) {
+        return new byte[][] {
+            Cart.keyOf(name).getBytes(UTF_8),
+            ascii(quantity),
+            ascii(ITEM_MAX_QUANTITY),
+            ascii(expirySeconds)
+        };
+    }
+
+    private byte[][] removeArgs(final String name) {
+        return new byte[][] {Cart.keyOf(name).getBytes(UTF_8), ascii(expirySeconds)};
+    }
+
+    private void onConflict(final String cartId, final int attempt) {
+        conflicts.increment();
+
+        if (attempt >= maxAttempts) {
+            aborted.increment();
+            throw new CartConflictException(cartId, attempt);
+        }
+
+        retries.increment();
+    }
+
+    private Changes changesOf(final Cart cart, final Collection<String> names) {
+        final var changes = new Changes();
+
+        names.stream()
+            .filter(name -> name != null && !name.isBlank())
+            .forEach(name ->
+                cart.findItemByName(name)
+                    .ifPresentOrElse(
+                        item -> changes.saved.put(Cart.keyOf(name),
+                                                  cartCodec.encodeItem(item,
+                                                                       cart.findReceiptItemByName(name).orElse(null))),
+                        () -> changes.removed.add(Cart.keyOf(name))));
+
+        return changes;
+    }
+
+    private Cart toCart(final long version, final List<KeyValue<String, byte[]>> items) {
+        final var cart = new Cart();
+
+        items.stream()
+            .filter(KeyValue::hasValue)
+            .forEach(item -> cartCodec.decodeItem(item.getValue(), cart));
+        cart.setVersion(version);
+
+        return cart;
+    }
+
+    /*
+     * The serialized size is only known for carts read from Redis, not for those served by the near cache.
+     */
+    private Cart cacheCart(final String cartId, final long version, final Map<String, byte[]> items) {
+        final var cart  = new Cart();
+        var       bytes = 0L;
+
+        for (final var item : items.values()) {
+            cartCodec.decodeItem(item, cart);
+            bytes += item.length;
+        }
+
+        cart.setVersion(version);
+        nearCache.put(cartId, cart);
+        cartBytes.record(bytes);
+
+        return cart;
+    }
+
+    private Cart loaded(final Cart cart) {
+        cartItems.record(cart.getItems().size());
+
+        return cart;
+    }
+
+    private String keyOf(final String cartId) {
+        return format(KEY_FORMAT, cartId);
+    }
+
+    private String versionKeyOf(final String cartId) {
+        return format(VERSION_KEY_FORMAT, cartId);
+    }
+
+    private String[] keysOf(final String cartId) {
+        return new String[] {keyOf(cartId), versionKeyOf(cartId)};
+    }
+
+    private static long parseVersion(final byte[] bytes) {
+        return Long.parseLong(new String(bytes, US_ASCII));
+    }
+
+    private static byte[] ascii(final long value) {
+        return Long.toString(value).getBytes(US_ASCII);
+    }
+
+    /*
+     * Arguments of the write script; see the script for their layout.
+     */
+    private static final class Changes {
+        private final Map<String, byte[]> saved   = new HashMap<>();
+        private final List<String>        removed = new ArrayList<>();
+
+        private boolean clear;
+        private Long    expectedVersion;
+
+        static Changes cleared() {
+            final var changes = new Changes();
+
+            changes.clear = true;
+
+            return changes;
+        }
+
+        Changes expecting(final long version) {
+            this.expectedVersion = version;
+
+            return this;
+        }
+
+        byte[][] toArgs(final long expirySeconds) {
+            final var args = new byte[4 + 2 * saved.size() + removed.size()][];
+            var i = 0;
+
+            args[i++] = expectedVersion == null ? UNCONDITIONAL : ascii(expectedVersion);
+            args[i++] = ascii(expirySeconds);
+            args[i++] = ascii(clear ? 1 : 0);
+            args[i++] = ascii(saved.size());
+
+            for (final var entry : saved.entrySet()) {
+                args[i++] = entry.getKey().getBytes(UTF_8);
+                args[i++] = entry.getValue();
+            }
+
+            for (final var field : removed) {
+                args[i++] = field.getBytes(UTF_8);
+            }
+
+            return args;
+        }
+    }
+
+    /*
+     * Signals a conflicting write of a reactive update that is to be retried. Carries no stack trace, since it is
+     * raised for control flow only.
+     */
+    private static final class Conflict extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        Conflict() {
+            super(null, null, false, false);
+        }
+    }
+
+    /*
+     * Reactive view of the store. Commands subscribed to together are dispatched in subscription order over the shared
+     * connection, and are therefore pipelined and executed in order just like the blocking commands. Whole carts and
+     * pages are decoded on the computation scheduler, off the event loop of the connection.
+     */
+    private final class Reactive implements ReactiveCartStore {
+
+        @Override
+        public Single<Cart> findCart(final String cartId) {
+            return Timings.timed(
+                        findTimer,
+                        findVersion(cartId)
+                            .flatMap(version ->
+                                nearCache.find(cartId, version)
+                                    .map(Single::just)
+                                    .orElseGet(() ->
+                                        Single.fromPublisher(reactiveCommands.hgetall(keyOf(cartId)))
+                                            .observeOn(Schedulers.computation())
+                                            .map(items -> cacheCart(cartId, version, items)))))
+                    .map(RedisHashCartStore.this::loaded);
+        }
+
+        @Override
+        public Single<Long> findVersion(final String cartId) {
+            return Flowable.fromPublisher(reactiveCommands.get(versionKeyOf(cartId)))
+                    .firstElement()
+                    .map(RedisHashCartStore::parseVersion)
+                    .toSingle(0L);
+        }
+
+        /*
+         * Pages are read with HSCAN, so neither Redis nor the store holds more than a page of the items of the cart at a
+         * time. HSCAN may return a field more than once, for instance while the hash is rehashed, so the fields already
+         * emitted by a stream are kept, and only their names are held for the whole cart. The near cache is bypassed,
+         * since streaming is meant for carts too large to be worth caching.
+         */
+        @Override
+        public Flowable<Cart> streamCart(final String cartId, final int pageSize) {
+            final var scanArgs = ScanArgs.Builder.limit(pageSize);
+
+            return findVersion(cartId)
+                    .flatMapPublisher(version -> {
+                        final var emitted = new HashSet<String>();
+
+                        return Flowable.fromPublisher(ScanStream.hscan(reactiveCommands, keyOf(cartId), scanArgs))
+                                .filter(item -> emitted.add(item.getKey()))
+                                .buffer(pageSize)
+                                .observeOn(Schedulers.computation())
+                                .map(items -> toCart(version, items));
+                    });
+        }
+
+        @Override
+        public Maybe<CartItem> findItem(final String cartId, final String name) {
+            if (name == null || name.isBlank()) {
+                return Maybe.empty();
+            }
+
+            return Flowable.fromPublisher(reactiveCommands.hget(keyOf(cartId), Cart.keyOf(name)))
+                    .firstElement()
+                    .map(cartCodec::decodeItem);
+        }
+
+        @Override
+        public Single<Boolean> addItem(final String cartId, final CartItem cartItem, final ReceiptItem receiptItem) {
+            return Timings.timed(
+                        writeTimer,
+                        Single.defer(() ->
+                            addScript.eval(reactiveCommands, keysOf(cartId), addArgs(cartItem, receiptItem))))
+                    .map(added -> written(cartId, added) > 0);
+        }
+
+        @Override
+        public Maybe<CartItem> updateItemQuantity(final String cartId, final String name, final long quantity) {
+            if (name == null || name.isBlank()) {
+                return Maybe.empty();
+            }
+
+            return Timings.timed(
+                        writeTimer,
+                        Maybe.defer(() ->
+                            updateQuantityScript.evalValue(reactiveCommands,
+                                                           keysOf(cartId),
+                                                           updateQuantityArgs(name, quantity))))
+                    .map(item -> written(cartId, item));
+        }
+
+        @Override
+        public <T> Single<T> update(final String cartId,
+                                    final Collection<String> names,
+                                    final Function<Cart, T> update) {
+            return Single.defer(() -> {
+                final var attempts = new AtomicInteger();
+
+                return Single.defer(() -> findCart(cartId))
+                        .flatMap(original -> {
+                            final var cart   = original.copy();
+                            final var result = update.apply(cart);
+
+                            if (cart.equals(original)) {
+                                return Single.just(result);
+                            }
+
+                            return write(cartId, changesOf(cart, names).expecting(cart.getVersion()))
+                                    .flatMap(removed -> {
+                                        if (written(cart, removed)) {
+                                            return Single.just(result);
+                                        }
+
+                                        onConflict(cartId, attempts.incrementAndGet());
+
+                                        return Single.<T>error(CONFLICT);
+                                    });
+                        })
+                        .retry(error -> error == CONFLICT);
+            });
+        }
+
+        @Override
+        public Maybe<CartItem> removeItem(final String cartId, final String name) {
+            return Timings.timed(
+                        writeTimer,
+                        Maybe.defer(() -> removeScript.evalValue(reactiveCommands, keysOf(cartId), removeArgs(name))))
+                    .map(item -> written(cartId, item));
+        }
+
+        @Override
+        public Completable clear(final String cartId) {
+            return Completable.defer(() -> write(cartId, Changes.cleared()).ignoreElement());
+        }
+
+        private Single<Long> write(final String cartId, final Changes changes) {
+            return Timings.timed(
+                        writeTimer,
+                        Single.defer(() ->
+                            writeScript.eval(reactiveCommands, keysOf(cartId), changes.toArgs(expirySeconds))))
+                    .doOnSuccess(result -> {
+                        if (result >= 0) {
+                            nearCache.invalidate(cartId);
+                        }
+                    });
+        }
+    }
+
+    /*
+     * Keys are UTF-8 strings, values are raw bytes.
+     */
+    private static final class StringKeyByteArrayValueCodec implements RedisCodec<String, byte[]> {
+
+        @Override
+        public String decodeKey(final ByteBuffer bytes) {
+            return StringCodec.UTF8.decodeKey(bytes);
+        }
+
+        @Override
+        public byte[] decodeValue(final ByteBuffer bytes) {
+            return ByteArrayCodec.INSTANCE.decodeValue(bytes);
+        }
+
+        @Override
+        public ByteBuffer encodeKey(final String key) {
+            return StringCodec.UTF8.encodeKey(key);
+        }
+
+        @Override
+        public ByteBuffer encodeValue(final byte[] value) {
+            return ByteArrayCodec.INSTANCE.encodeValue(value);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package griz.shop.server.store;
+
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.reactive.RedisScriptingReactiveCommands;
+import io.lettuce.core.api.sync.RedisScriptingCommands;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A Lua script read from the classpath and executed by its SHA1 digest.
+ *
+ * <p>The script is only sent in full when Redis does not know the digest, such as after a restart or a failover, and
+ * is cached by Redis from then on.
+ *
+ * @author nichollsmc
+ */
+final class RedisScript {
+
+    private final String source;
+    private final String digest;
+
+    private RedisScript(final String source) {
+        this.source = source;
+        this.digest = sha1(source);
+    }
+
+    /**
+     * Reads the script from the provided classpath resource.
+     *
+     * @param resource the name of the classpath resource
+     * @return the {@code RedisScript}
+     */
+    static RedisScript of(final String resource) {
+        try (var inputStream = RedisScript.class.getClassLoader().getResourceAsStream(resource)) {
+            Objects.requireNonNull(inputStream, format("Redis script '%s' not found", resource));
+
+            return new RedisScript(new String(inputStream.readAllBytes(), UTF_8));
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Loads the script into the script cache of Redis.
+     *
+     * @param commands the {@link RedisScriptingCommands} used for loading the script
+     */
+    void load(final RedisScriptingCommands<String, byte[]> commands) {
+        commands.scriptLoad(source.getBytes(UTF_8));
+    }
+
+    /**
+     * Executes the script and returns its integer result.
+     *
+     * @param commands the {@link RedisScriptingCommands} used for executing the script
+     * @param keys the keys accessed by the script
+     * @param args the arguments of the script
+     * @return the result of the script
+     */
+    long eval(final RedisScriptingCommands<String, byte[]> commands, final String[] keys, final byte[]... args) {
+        return this.<Long>execute(commands, ScriptOutputType.INTEGER, keys, args);
+    }
+
+    /**
+     * Executes the script and returns its bulk string result.
+     *
+     * @param commands the {@link RedisScriptingCommands} used for executing the script
+     * @param keys the keys accessed by the script
+     * @param args the arguments of the script
+     * @return the result of the script, or {@code null} if the script returned nil
+     */
+    byte[] evalValue(final RedisScriptingCommands<String, byte[]> commands, final String[] keys, final byte[]... args) {
+        return execute(commands, ScriptOutputType.VALUE, keys, args);
+    }
+
+    /**
+     * Executes the script on subscription and emits its integer result.
+     *
+     * @param commands the {@link RedisScriptingReactiveCommands} used for executing the script
+     * @param keys the keys accessed by the script
+     * @param args the arguments of the script
+     * @return a {@link Single} emitting the result of the script
+     */
+    Single<Long> eval(final RedisScriptingReactiveCommands<String, byte[]> commands,
+                      final String[] keys,
+                      final byte[]... args) {
+        return this.<Long>execute(commands, ScriptOutputType.INTEGER, keys, args).firstOrError();
+    }
+
+    /**
+     * Executes the script on subscription and emits its bulk string result.
+     *
+     * @param commands the {@link RedisScriptingReactiveCommands} used for executing the script
+     * @param keys the keys accessed by the script
+     * @param args the arguments of the script
+     * @return a {@link Maybe} emitting the result of the script, or completing empty if the script returned nil
+     */
+    Maybe<byte[]> evalValue(final RedisScriptingReactiveCommands<String, byte[]> commands,
+                            final String[] keys,
+                            final byte[]... args) {
+        return this.<byte[]>execute(commands, ScriptOutputType.VALUE, keys, args).firstElement();
+    }
+
+    private <T> T execute(final RedisScriptingCommands<String, byte[]> commands,
+                          final ScriptOutputType outputType,
+                          final String[] keys,
+                          final byte[]... args) {
+        try {
+            return commands.evalsha(digest, outputType, keys, args);
+        } catch (RedisNoScriptException e) {
+            return commands.eval(source, outputType, keys, args);
+        }
+    }
+
+    private <T> Flowable<T> execute(final RedisScriptingReactiveCommands<String, byte[]> commands,
+                                    final ScriptOutputType outputType,
+                                    final String[] keys,
+                                    final byte[]... args) {
+        return Flowable.<T>fromPublisher(commands.evalsha(digest, outputType, keys, args))
+                .onErrorResumeNext((Throwable e) ->
+                    e instanceof RedisNoScriptException
+                        ? Flowable.fromPublisher(commands.<T>eval(source, outputType, keys, args))
+                        : Flowable.error(e));
+    }
+
+    private static String sha1(final String source) {
+        try {
+            final var hash = MessageDigest.getInstance("SHA-1").digest(source.getBytes(UTF_8));
+
+            return format("%040x", new BigInteger(1, hash));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package griz.shop.server.store;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.ReceiptItem;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.context.ServerRequestContext;
+import io.micronaut.session.Session;
+import io.micronaut.session.http.HttpSessionFilter;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static griz.shop.server.domain.CartItem.ITEM_MAX_QUANTITY;
+import static java.lang.String.format;
+
+/**
+ * {@link CartStore} that keeps the whole {@link Cart} as an attribute of the HTTP {@link Session}.
+ *
+ * <p>Every mutation writes the full {@code Cart} back to the session. This is the original state management of the
+ * application and is retained as a fallback for deployments without a dedicated Redis instance for carts.
+ *
+ * <p>Requests of the same session are not isolated from each other, so an {@link #update(String, Collection, Function)
+ * update} is applied once without detecting conflicting writes.
+ *
+ * <p>The session is loaded by the session filter before the request is handled, so the {@link #reactive() reactive}
+ * view only defers the same in-memory operations until subscription.
+ *
+ * <p>The session is only persisted once the response has been written, and the serialized size of the {@code Cart}
+ * is recorded by the {@link CartSessionSerializer}. Writes are timed as the {@code Cart} is put in the session, so
+ * the {@value CartStore#METRIC_WRITE} timer of this store does not include persisting the session.
+ *
+ * @author nichollsmc
+ */
+@Singleton
+@Requires(property = CartStore.PROPERTY_MODE, value = SessionCartStore.MODE)
+public class SessionCartStore implements CartStore {
+
+    /**
+     * Defines the value of {@value CartStore#PROPERTY_MODE} that selects this store.
+     */
+    public static final String MODE = "session";
+
+    private static final String SESSSION_ATTRIBUTE_CART = "shop.cart";
+
+    private final ReactiveCartStore   reactive;
+    private final Timer               findTimer;
+    private final Timer               writeTimer;
+    private final DistributionSummary cartItems;
+
+    @Inject
+    public SessionCartStore(final MeterRegistry meterRegistry) {
+        this.reactive   = new Reactive();
+        this.findTimer  = meterRegistry.timer(METRIC_FIND, METRIC_TAG_STORE, MODE);
+        this.writeTimer = meterRegistry.timer(METRIC_WRITE, METRIC_TAG_STORE, MODE);
+        this.cartItems  = meterRegistry.summary(METRIC_ITEMS, METRIC_TAG_STORE, MODE);
+    }
+
+    @Override
+    public Cart findCart(final String cartId) {
+        final var cart = findTimer.record(() -> findCart(session(cartId)));
+
+        cartItems.record(cart.getItems().size());
+
+        return cart;
+    }
+
+    @Override
+    public long findVersion(final String cartId) {
+        return findCart(session(cartId)).getVersion();
+    }
+
+    @Override
+    public Optional<CartItem> findItem(final String cartId, final String name) {
+        return findCart(session(cartId)).findItemByName(name);
+    }
+
+    @Override
+    public boolean addItem(final String cartId, final CartItem cartItem, final ReceiptItem receiptItem) {
+        final var session = session(cartId);
+        final var cart    = findCart(session);
+
+        if (cart.findItemByName(cartItem.getName()).isPresent()) {
+            return false;
+        }
+
+        cart.addItem(cartItem, receiptItem);
+        save(session, cart);
+
+        return true;
+    }
+
+    @Override
+    public Optional<CartItem> updateItemQuantity(final String cartId, final String name, final long quantity) {
+        final var session = session(cartId);
+        final var cart    = findCart(session);
+
+        return cart.findItemByName(name)
+                .map(item -> {
+                    if (quantity < 0 || quantity > ITEM_MAX_QUANTITY) {
+                        return item;
+                    }
+
+                    if (quantity == 0) {
+                        cart.removeItemByName(name);
+                        save(session, cart);
+                        return item;
+                    }
+
+                    final var updatedItem =
+                        CartItem.builder()
+                            .name(item.getName())
+                            .pricePerItem(item.getPricePerItem())
+                            .quantity(BigInteger.valueOf(quantity))
+                            .build();
+
+                    cart.addItem(updatedItem);
+                    save(session, cart);
+
+                    return updatedItem;
+                });
+    }
+
+    @Override
+    public <T> T update(final String cartId, final Collection<String> names, final Function<Cart, T> update) {
+        final var session = session(cartId);
+        final var cart    = findCart(session).copy();
+        final var result  = update.apply(cart);
+
+        if (!cart.equals(findCart(session))) {
+            save(session, cart);
+        }
+
+        return result;
+    }
+
+    @Override
+    public Optional<CartItem> removeItem(final String cartId, final String name) {
+        final var session = session(cartId);
+        final var cart    = findCart(session);
+
+        return cart.removeItemByName(name)
+                .map(item -> {
+                    save(session, cart);
+                    return item;
+                });
+    }
+
+    /*
+     * The cleared cart is kept rather than removed, so that its version keeps advancing and a version is never reused
+     * for different content.
+     */
+    @Override
+    public void clear(final String cartId) {
+        final var session = session(cartId);
+        final var cart    = new Cart();
+
+        cart.setVersion(findCart(session).getVersion());
+        save(session, cart);
+    }
+
+    @Override
+    public ReactiveCartStore reactive() {
+        return reactive;
+    }
+
+    private Cart findCart(final Session session) {
+        return session.get(SESSSION_ATTRIBUTE_CART, Cart.class)
+                .orElseGet(Cart::new);
+    }
+
+    private void save(final Session session, final Cart cart) {
+        writeTimer.record(() -> {
+            cart.setVersion(cart.getVersion() + 1);
+            session.put(SESSSION_ATTRIBUTE_CART, cart);
+        });
+    }
+
+    private static Cart pageOf(final Cart cart, final List<CartItem> items) {
+        final var page = new Cart();
+
+        items.forEach(item ->
+            cart.findReceiptItemByName(item.getName())
+                .ifPresentOrElse(receiptItem -> page.addItem(item, receiptItem), () -> page.addItem(item)));
+        page.setVersion(cart.getVersion());
+
+        return page;
+    }
+
+    /*
+     * The session is resolved from the request being served, since the session filter only persists the instance
+     * bound to the request.
+     */
+    private Session session(final String cartId) {
+        return ServerRequestContext.currentRequest()
+                .flatMap(request -> request.getAttributes().get(HttpSessionFilter.SESSION_ATTRIBUTE, Session.class))
+                .filter(session -> session.getId().equals(cartId))
+                .orElseThrow(() -> new IllegalStateException(format("No HTTP session bound for cart '%s'.", cartId)));
+    }
+
+    private final class Reactive implements ReactiveCartStore {
+
+        @Override
+        public Single<Cart> findCart(final String cartId) {
+            return Single.fromCallable(() -> SessionCartStore.this.findCart(cartId));
+        }
+
+        @Override
+        public Single<Long> findVersion(final String cartId) {
+            return Single.fromCallable(() -> SessionCartStore.this.findVersion(cartId));
+        }
+
+        @Override
+        public Flowable<Cart> streamCart(final String cartId, final int pageSize) {
+            return Flowable.defer(() -> {
+                final var cart = SessionCartStore.this.findCart(cartId).copy();
+
+                return Flowable.fromIterable(cart.getItems())
+                        .buffer(pageSize)
+                        .map(items -> pageOf(cart, items));
+            });
+        }
+
+        @Override
+        public Maybe<CartItem> findItem(final String cartId, final String name) {
+            return Maybe.defer(() ->
+                SessionCartStore.this.findItem(cartId, name)
+                    .map(Maybe::just)
+                    .orElseGet(Maybe::empty));
+        }
+
+        @Override
+        public Single<Boolean> addItem(final String cartId, final CartItem cartItem, final ReceiptItem receiptItem) {
+            return Single.fromCallable(() -> SessionCartStore.this.addItem(cartId, cartItem, receiptItem));
+        }
+
+        @Override
+        public Maybe<CartItem> updateItemQuantity(final String cartId, final String name, final long quantity) {
+            return Maybe.defer(() ->
+                SessionCartStore.this.updateItemQuantity(cartId, name, quantity)
+                    .map(Maybe::just)
+                    .orElseGet(Maybe::empty));
+        }
+
+        @Override
+        public <T> Single<T> update(final String cartId,
+                                    final Collection<String> names,
+                                    final Function<Cart, T> update) {
+            return Single.fromCallable(() -> SessionCartStore.this.update(cartId, names, update));
+        }
+
+        @Override
+        public Maybe<CartItem> removeItem(final String cartId, final String name) {
+            return Maybe.defer(() ->
+                SessionCartStore.this.removeItem(cartId, name)
+                    .map(Maybe::just)
+                    .orElseGet(Maybe::empty));
+        }
+
+        @Override
+        public Completable clear(final String cartId) {
+            return Completable.fromAction(() -> SessionCartStore.this.clear(cartId));
+        }
+    }
+}
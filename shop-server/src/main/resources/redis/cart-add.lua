@@ -0,0 +1,21 @@
+--[[
+  Adds an item to a cart unless the cart has an item with the same field, and advances the version of the cart,
+  atomically.
+
+  KEYS[1]  the hash of the cart
+  KEYS[2]  the version of the cart
+  ARGV[1]  the field of the item
+  ARGV[2]  the value of the item
+  ARGV[3]  the expiry of both keys, in seconds
+
+  Returns 1 if the item was added, or 0 if the cart already has the item.
+]]
+if redis.call('HSETNX', KEYS[1], ARGV[1], ARGV[2]) == 0 then
+    return 0
+end
+
+redis.call('INCR', KEYS[2])
+redis.call('EXPIRE', KEYS[1], ARGV[3])
+redis.call('EXPIRE', KEYS[2], ARGV[3])
+
+return 1
@@ -0,0 +1,22 @@
+--[[
+  Removes an item from a cart and advances the version of the cart, atomically.
+
+  KEYS[1]  the hash of the cart
+  KEYS[2]  the version of the cart
+  ARGV[1]  the field of the item
+  ARGV[2]  the expiry of both keys, in seconds
+
+  Returns the removed item, or nil if the cart has no such item.
+]]
+local item = redis.call('HGET', KEYS[1], ARGV[1])
+
+if not item then
+    return false
+end
+
+redis.call('HDEL', KEYS[1], ARGV[1])
+redis.call('INCR', KEYS[2])
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+redis.call('EXPIRE', KEYS[2], ARGV[2])
+
+return item
@@ -0,0 +1,99 @@
+--[[
+  Sets the quantity of an item of a cart and advances the version of the cart, atomically.
+
+  KEYS[1]  the hash of the cart
+  KEYS[2]  the version of the cart
+  ARGV[1]  the field of the item
+  ARGV[2]  the new quantity, where 0 removes the item
+  ARGV[3]  the maximum quantity of an item
+  ARGV[4]  the expiry of both keys, in seconds
+
+  Lua numbers are doubles, so the script cannot price the item exactly. The item is stored with the new quantity in
+  place of the leading varint of its CartCodec encoding and the flag of an unpriced item in place of its priced total,
+  and is priced at checkout. The header, price and name are kept as they were stored.
+
+  Returns the updated item, the removed item for a quantity of 0, the unchanged item for a quantity out of bounds or
+  equal to the stored quantity, or nil if the cart has no such item.
+]]
+local item = redis.call('HGET', KEYS[1], ARGV[1])
+
+if not item then
+    return false
+end
+
+local quantity = tonumber(ARGV[2])
+
+if not quantity or quantity ~= math.floor(quantity) or quantity < 0 or quantity > tonumber(ARGV[3]) then
+    return item
+end
+
+local function read_varint(position)
+    local value, multiplier = 0, 1
+
+    while true do
+        local b = string.byte(item, position)
+
+        value    = value + (b % 128) * multiplier
+        position = position + 1
+
+        if b < 128 then
+            return value, position
+        end
+
+        multiplier = multiplier * 128
+    end
+end
+
+local function skip_varint(position)
+    local _, next_position = read_varint(position)
+
+    return next_position
+end
+
+local function skip_string(position)
+    local length, next_position = read_varint(position)
+
+    return next_position + length
+end
+
+local function varint(value)
+    local bytes = {}
+
+    while value >= 128 do
+        bytes[#bytes + 1] = string.char(value % 128 + 128)
+        value = math.floor(value / 128)
+    end
+
+    bytes[#bytes + 1] = string.char(value)
+
+    return table.concat(bytes)
+end
+
+-- magic and format version, followed by the varint size of the dictionary
+local header_end             = skip_varint(3)
+local stored_quantity, price = read_varint(header_end)
+
+if quantity == stored_quantity then
+    return item
+end
+
+if quantity == 0 then
+    redis.call('HDEL', KEYS[1], ARGV[1])
+else
+    -- the price is a scale byte followed by a zig-zag varint, or by a decimal string for scale 255
+    local name = string.byte(item, price) == 255 and skip_string(price + 1) or skip_varint(price + 1)
+
+    -- the name is a dictionary reference, where 0 is followed by the name
+    local reference, after_reference = read_varint(name)
+    local total = reference == 0 and skip_string(after_reference) or after_reference
+
+    item = string.sub(item, 1, header_end - 1) .. varint(quantity) .. string.sub(item, price, total - 1) .. '\0'
+
+    redis.call('HSET', KEYS[1], ARGV[1], item)
+end
+
+redis.call('INCR', KEYS[2])
+redis.call('EXPIRE', KEYS[1], ARGV[4])
+redis.call('EXPIRE', KEYS[2], ARGV[4])
+
+return item
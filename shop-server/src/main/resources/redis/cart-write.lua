@@ -0,0 +1,41 @@
+--[[
+  Writes items of a cart and advances the version of the cart, atomically.
+
+  KEYS[1]          the hash of the cart
+  KEYS[2]          the version of the cart
+  ARGV[1]          the expected version, or an empty string for an unconditional write
+  ARGV[2]          the expiry of both keys, in seconds
+  ARGV[3]          '1' to remove all items before writing, otherwise '0'
+  ARGV[4]          the number n of items to save
+  ARGV[5..4+2n]    the field and value of each item to save
+  ARGV[5+2n..]     the fields of the items to remove
+
+  Returns the number of items removed, or -1 if the version of the cart is not the expected version.
+]]
+local expected = ARGV[1]
+
+if expected ~= '' and tonumber(redis.call('GET', KEYS[2]) or '0') ~= tonumber(expected) then
+    return -1
+end
+
+if ARGV[3] == '1' then
+    redis.call('DEL', KEYS[1])
+end
+
+local saved = tonumber(ARGV[4])
+
+for i = 5, 4 + 2 * saved, 2 do
+    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+
+local removed = 0
+
+for i = 5 + 2 * saved, #ARGV do
+    removed = removed + redis.call('HDEL', KEYS[1], ARGV[i])
+end
+
+redis.call('INCR', KEYS[2])
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+redis.call('EXPIRE', KEYS[2], ARGV[2])
+
+return removed
@@ -0,0 +1,147 @@
+package griz.shop.server.api;
+
+import griz.shop.server.grpc.CartProto;
+import griz.shop.server.grpc.CartServiceGrpc;
+import griz.shop.server.service.CartBatchService;
+import griz.shop.server.service.CheckoutExecutor;
+import griz.shop.server.service.CheckoutService;
+import griz.shop.server.service.DiscountEngine;
+import griz.shop.server.store.CartStore;
+import griz.shop.server.store.InMemoryCartStore;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.validation.validator.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GrpcCartOperationsTest {
+
+    private static final String CART_ID = "1f6b3c1e";
+
+    private final InMemoryCartStore   cartStore     = new InMemoryCartStore();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Server                                  server;
+    private ManagedChannel                          channel;
+    private CartServiceGrpc.CartServiceBlockingStub stub;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        final var checkoutService = new CheckoutService(new CheckoutExecutor(1, 2048, 32768, 1024, meterRegistry),
+                                                        new DiscountEngine(null, "", meterRegistry),
+                                                        meterRegistry);
+        final var operations      = new GrpcCartOperations();
+
+        operations.cartStore        = cartStore;
+        operations.checkoutService  = checkoutService;
+        operations.cartBatchService = new CartBatchService(cartStore, checkoutService, Validator.getInstance());
+        operations.receiptPageSize  = 2;
+        operations.meterRegistry    = meterRegistry;
+        operations.registerMetrics();
+
+        final var name = InProcessServerBuilder.generateName();
+
+        server  = InProcessServerBuilder.forName(name).directExecutor().addService(operations).build().start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        stub    = CartServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void cartIdsAreKeptApartFromSessions() {
+        stub.addItem(addItemRequest("apple", 3, "0.25"));
+
+        assertEquals(List.of(CartStore.clientCartId(CART_ID)), cartStore.cartIds());
+        assertTrue(cartStore.findCart(CART_ID).getItems().isEmpty());
+        assertEquals(1, stub.getCart(CartProto.CartRequest.newBuilder().setCartId(CART_ID).build()).getItemsCount());
+    }
+
+    @Test
+    void itemsAreAddedUpdatedAndRemoved() {
+        final var added = stub.addItem(addItemRequest("apple", 3, "0.25"));
+
+        assertEquals("0.25", added.getPricePerItem());
+
+        final var updated =
+            stub.updateItemQuantity(CartProto.UpdateItemQuantityRequest.newBuilder()
+                                        .setCartId(CART_ID)
+                                        .setName("APPLE")
+                                        .setQuantity(5)
+                                        .build());
+
+        assertEquals(5, updated.getQuantity());
+        assertEquals(updated, stub.getItem(itemRequest("apple")));
+        assertEquals(updated, stub.removeItem(itemRequest("apple")));
+
+        final var missing = assertThrows(StatusRuntimeException.class, () -> stub.getItem(itemRequest("apple")));
+
+        assertEquals(Status.Code.NOT_FOUND, missing.getStatus().getCode());
+        assertEquals(5, meterRegistry.timer(CartOperations.METRIC_ITEM_REQUESTS, "api", "grpc").count());
+    }
+
+    @Test
+    void rejectedRequestsAreInvalidArguments() {
+        stub.addItem(addItemRequest("apple", 3, "0.25"));
+
+        final var duplicate = assertThrows(StatusRuntimeException.class, () ->
+            stub.addItem(addItemRequest("Apple", 1, "0.25")));
+        final var blank     = assertThrows(StatusRuntimeException.class, () ->
+            stub.getCart(CartProto.CartRequest.getDefaultInstance()));
+
+        assertEquals(Status.Code.INVALID_ARGUMENT, duplicate.getStatus().getCode());
+        assertEquals(Status.Code.INVALID_ARGUMENT, blank.getStatus().getCode());
+    }
+
+    @Test
+    void receiptIsStreamedALineAtATime() {
+        stub.addItem(addItemRequest("apple", 3, "0.25"));
+        stub.addItem(addItemRequest("banana", 2, "0.50"));
+        stub.addItem(addItemRequest("cherry", 1, "1.00"));
+
+        final var lines = new ArrayList<CartProto.ReceiptLine>();
+
+        stub.streamReceipt(CartProto.CartRequest.newBuilder().setCartId(CART_ID).build()).forEachRemaining(lines::add);
+
+        final var receipt = stub.getReceipt(CartProto.CartRequest.newBuilder().setCartId(CART_ID).build());
+        final var total   = lines.get(lines.size() - 1).getTotal();
+
+        assertEquals(4, lines.size());
+        assertEquals(3, total.getItemCount());
+        assertEquals(receipt.getTotalPrice(), total.getTotalPrice());
+    }
+
+    private static CartProto.AddItemRequest addItemRequest(final String name,
+                                                           final long quantity,
+                                                           final String pricePerItem) {
+        return CartProto.AddItemRequest.newBuilder()
+                .setCartId(CART_ID)
+                .setItem(CartProto.CartItem.newBuilder()
+                             .setName(name)
+                             .setQuantity(quantity)
+                             .setPricePerItem(pricePerItem))
+                .build();
+    }
+
+    private static CartProto.ItemRequest itemRequest(final String name) {
+        return CartProto.ItemRequest.newBuilder().setCartId(CART_ID).setName(name).build();
+    }
+}
@@ -0,0 +1,191 @@
+package griz.shop.server.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartOperation;
+import griz.shop.server.service.CartBatchService;
+import griz.shop.server.service.CheckoutExecutor;
+import griz.shop.server.service.CheckoutService;
+import griz.shop.server.service.DiscountEngine;
+import griz.shop.server.store.CartStore;
+import griz.shop.server.store.InMemoryCartStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.validation.validator.Validator;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.core.RSocketConnector;
+import io.rsocket.transport.netty.client.TcpClientTransport;
+import io.rsocket.util.DefaultPayload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RSocketCartOperationsTest {
+
+    private static final String   CART_ID = "1f6b3c1e";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final ObjectMapper      objectMapper = new ObjectMapper();
+    private final InMemoryCartStore cartStore    = new FailingCartStore();
+
+    private ExecutorService       ioExecutor;
+    private RSocketCartOperations operations;
+    private RSocket               client;
+
+    @BeforeEach
+    void setUp() {
+        final var meterRegistry   = new SimpleMeterRegistry();
+        final var checkoutService = new CheckoutService(new CheckoutExecutor(1, 2048, 32768, 1024, meterRegistry),
+                                                        new DiscountEngine(null, "", meterRegistry),
+                                                        meterRegistry);
+
+        final var cartBatchService = new CartBatchService(cartStore, checkoutService, Validator.getInstance());
+
+        ioExecutor = Executors.newCachedThreadPool();
+        operations = new RSocketCartOperations(cartBatchService,
+                                               checkoutService,
+                                               objectMapper,
+                                               ioExecutor,
+                                               0);
+        operations.onApplicationEvent(null);
+        client = RSocketConnector.connectWith(TcpClientTransport.create(operations.address())).block(TIMEOUT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.dispose();
+        operations.shutdown();
+        ioExecutor.shutdownNow();
+    }
+
+    @Test
+    void operationsAreAnsweredInOrderOneAtATime() {
+        final var batch     = List.of(add("apple"), update("APPLE", 4), remove("cherry"), remove("apple"));
+        final var answers   = new CopyOnWriteArrayList<JsonNode>();
+        final var requested = new CopyOnWriteArrayList<Long>();
+        final var answered  = new CopyOnWriteArrayList<Integer>();
+
+        final var outbound =
+            Flux.range(0, batch.size())
+                .doOnRequest(requested::add)
+                .doOnNext(i -> answered.add(answers.size()))
+                .map(i -> payload(batch.get(i), i == 0));
+
+        client.requestChannel(outbound).map(this::read).doOnNext(answers::add).blockLast(TIMEOUT);
+
+        assertEquals(List.of(201, 0, 201, 0, 404, 201, 0), statusesOf(answers));
+        assertEquals(1, answers.get(3).get("itemCount").asInt());
+        assertEquals(List.of(0, 2, 4, 5), answered);
+        assertTrue(requested.stream().allMatch(n -> n == 1), () -> "Requested " + requested);
+        assertTrue(cartStore.findCart(CartStore.clientCartId(CART_ID)).getItems().isEmpty());
+    }
+
+    @Test
+    void failedOperationsAreAnsweredAndTheChannelCarriesOn() {
+        final var outbound = Flux.just(payload(add("boom"), true), payload(add("apple"), false));
+
+        final var answers = client.requestChannel(outbound).map(this::read).collectList().block(TIMEOUT);
+
+        assertEquals(List.of(500, 201, 0), statusesOf(answers));
+        assertEquals("boom", answers.get(0).get("name").asText());
+    }
+
+    @Test
+    void malformedOperationsAreBadRequests() {
+        final var outbound = Flux.just(DefaultPayload.create("{", CART_ID), payload(add("apple"), false));
+
+        final var answers = client.requestChannel(outbound).map(this::read).collectList().block(TIMEOUT);
+
+        assertEquals(List.of(400, 201, 0), statusesOf(answers));
+    }
+
+    @Test
+    void firstPayloadMustNameTheCart() {
+        final var outbound = Flux.just(payload(add("apple"), false));
+
+        assertThrows(RuntimeException.class, () -> client.requestChannel(outbound).blockLast(TIMEOUT));
+        assertTrue(cartStore.cartIds().isEmpty());
+    }
+
+    private Payload payload(final CartOperation operation, final boolean first) {
+        try {
+            final var data = objectMapper.writeValueAsBytes(operation);
+
+            return first ? DefaultPayload.create(data, CART_ID.getBytes(UTF_8)) : DefaultPayload.create(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode read(final Payload payload) {
+        try {
+            return objectMapper.readTree(payload.getDataUtf8());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            payload.release();
+        }
+    }
+
+    /*
+     * Receipt totals have no status, and are reported as 0.
+     */
+    private static List<Integer> statusesOf(final List<JsonNode> answers) {
+        final var statuses = new ArrayList<Integer>();
+
+        answers.forEach(answer -> statuses.add(answer.path("status").asInt()));
+
+        return statuses;
+    }
+
+    private static CartOperation add(final String name) {
+        return CartOperation.builder()
+                .op(CartOperation.Type.ADD)
+                .name(name)
+                .pricePerItem(new BigDecimal("0.25"))
+                .quantity(3L)
+                .build();
+    }
+
+    private static CartOperation update(final String name, final long quantity) {
+        return CartOperation.builder().op(CartOperation.Type.UPDATE).name(name).quantity(quantity).build();
+    }
+
+    private static CartOperation remove(final String name) {
+        return CartOperation.builder().op(CartOperation.Type.REMOVE).name(name).build();
+    }
+
+    /*
+     * Fails every update of an item named "boom", as a store that cannot be reached would.
+     */
+    private static final class FailingCartStore extends InMemoryCartStore {
+
+        @Override
+        public <T> T update(final String cartId, final Collection<String> names, final Function<Cart, T> update) {
+            if (names.contains("boom")) {
+                throw new IllegalStateException("Cart store unavailable.");
+            }
+
+            return super.update(cartId, names, update);
+        }
+    }
+}
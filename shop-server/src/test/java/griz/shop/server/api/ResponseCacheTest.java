@@ -0,0 +1,69 @@
+package griz.shop.server.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.service.DiscountEngine;
+import griz.shop.server.store.RedisHashCartStore;
+import griz.shop.server.store.SessionCartStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBufUtil;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import static griz.shop.server.api.ResponseCache.Response.CART;
+import static griz.shop.server.api.ResponseCache.Response.RECEIPT;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+
+    private static final String CART_ID = "1f6b3c1e";
+
+    @Test
+    void responsesAreServedWhileTheVersionIsUnchanged() {
+        final var responseCache = responseCache(RedisHashCartStore.MODE);
+        final var cart          = cart(3);
+        final var json          = ByteBufUtil.getBytes(responseCache.put(CART_ID, cart, CART, () -> cart));
+
+        assertArrayEquals(json, ByteBufUtil.getBytes(responseCache.find(CART_ID, 3, CART).orElseThrow()));
+        assertTrue(responseCache.find(CART_ID, 3, RECEIPT).isEmpty());
+        assertTrue(responseCache.find(CART_ID, 4, CART).isEmpty());
+    }
+
+    @Test
+    void responsesAreNotCachedForSessionCarts() {
+        final var responseCache = responseCache(SessionCartStore.MODE);
+        final var cart          = cart(3);
+        final var json          = ByteBufUtil.getBytes(responseCache.put(CART_ID, cart, CART, () -> cart));
+
+        assertArrayEquals(json, ByteBufUtil.getBytes(responseCache(RedisHashCartStore.MODE)
+                                                         .put(CART_ID, cart, CART, () -> cart)));
+        assertTrue(responseCache.find(CART_ID, 3, CART).isEmpty());
+    }
+
+    private static ResponseCache responseCache(final String storeMode) {
+        final var meterRegistry = new SimpleMeterRegistry();
+
+        return new ResponseCache(new ObjectMapper(),
+                                 new DiscountEngine(null, "", meterRegistry),
+                                 meterRegistry,
+                                 100,
+                                 storeMode);
+    }
+
+    private static Cart cart(final long version) {
+        final var cart = new Cart(List.of(CartItem.builder()
+                                              .name("apple")
+                                              .pricePerItem(new BigDecimal("0.25"))
+                                              .quantity(BigInteger.TEN)
+                                              .build()));
+
+        cart.setVersion(version);
+
+        return cart;
+    }
+}
@@ -0,0 +1,108 @@
+package griz.shop.server.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartTest {
+
+    @Test
+    void keysFoldCase() {
+        assertEquals("apple", Cart.keyOf("APPLE"));
+        assertEquals(Cart.keyOf("apple"), Cart.keyOf("aPpLe"));
+        assertEquals(Cart.keyOf("s"), Cart.keyOf("ſ"));
+        assertEquals(Cart.keyOf("k"), Cart.keyOf("K"));
+        assertEquals(Cart.keyOf("σ"), Cart.keyOf("ς"));
+        assertNotEquals(Cart.keyOf("apple"), Cart.keyOf("apples"));
+    }
+
+    @Test
+    void itemsAreFoundAndReplacedIgnoringCase() {
+        final var cart = new Cart(List.of(item("Apple", 1)));
+
+        assertEquals(item("Apple", 1), cart.findItemByName("APPLE").orElseThrow());
+        assertEquals(item("Apple", 1), cart.addItem(item("apple", 2)).orElseThrow());
+        assertEquals(List.of(item("apple", 2)), List.copyOf(cart.getItems()));
+        assertEquals(item("apple", 2), cart.removeItemByName("aPPLE").orElseThrow());
+        assertTrue(cart.getItems().isEmpty());
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        final var apple = item("apple", 1);
+        final var cart  = new Cart(List.of(item("banana", 2)));
+
+        cart.addItem(apple, receiptItem(apple, 7));
+        cart.setVersion(3);
+
+        final var copy = cart.copy();
+
+        assertEquals(cart, copy);
+        assertEquals(3, copy.getVersion());
+        assertEquals(cart.findReceiptItemByName("apple"), copy.findReceiptItemByName("apple"));
+        assertEquals(cart.getTotalPrice(), copy.getTotalPrice());
+
+        copy.removeItemByName("apple");
+        copy.addItem(item("cherry", 4));
+
+        assertTrue(cart.findItemByName("apple").isPresent());
+        assertTrue(cart.findReceiptItemByName("apple").isPresent());
+        assertTrue(cart.findItemByName("cherry").isEmpty());
+        assertEquals(new BigDecimal("1.00"), cart.getTotalPrice());
+        assertEquals(0, BigDecimal.ZERO.compareTo(copy.getTotalPrice()));
+    }
+
+    @Test
+    void equalityIgnoresVersionAndPricing() {
+        final var apple  = item("apple", 1);
+        final var priced = new Cart(List.of(item("banana", 2)));
+        final var plain  = new Cart(List.of(item("banana", 2), apple));
+
+        priced.addItem(apple, receiptItem(apple, 7));
+        priced.setVersion(5);
+
+        assertEquals(plain, priced);
+        assertEquals(plain.hashCode(), priced.hashCode());
+        assertNotEquals(plain.getVersion(), priced.getVersion());
+        assertNotEquals(plain.getTotalPrice(), priced.getTotalPrice());
+        assertNotEquals(plain, new Cart(List.of(item("banana", 3), apple)));
+    }
+
+    @Test
+    void onlyItemsAreSerialized() throws JsonProcessingException {
+        final var apple = item("apple", 1);
+        final var cart  = new Cart(List.of(item("banana", 2)));
+
+        cart.addItem(apple, receiptItem(apple, 7));
+
+        final var json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(cart));
+
+        assertEquals(1, json.size());
+        assertEquals(2, json.get("items").size());
+    }
+
+    private static CartItem item(final String name, final long quantity) {
+        return CartItem.builder()
+                .name(name)
+                .pricePerItem(BigDecimal.ONE)
+                .quantity(BigInteger.valueOf(quantity))
+                .build();
+    }
+
+    private static ReceiptItem receiptItem(final CartItem cartItem, final long generation) {
+        return ReceiptItem.builder()
+                .name(cartItem.getName())
+                .quantity(cartItem.getQuantity())
+                .totalPrice(new BigDecimal("1.00"))
+                .generation(generation)
+                .build();
+    }
+}
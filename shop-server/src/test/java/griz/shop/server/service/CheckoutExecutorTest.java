@@ -0,0 +1,62 @@
+package griz.shop.server.service;
+
+import griz.shop.server.service.CheckoutExecutor.Strategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CheckoutExecutorTest {
+
+    @Test
+    void cartsArePricedSequentiallyByDefault() {
+        final var checkoutExecutor = checkoutExecutor(0, 0);
+
+        try {
+            assertEquals(Strategy.SEQUENTIAL, checkoutExecutor.strategyFor(0));
+            assertEquals(Strategy.SEQUENTIAL, checkoutExecutor.strategyFor(Integer.MAX_VALUE));
+        } finally {
+            checkoutExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void strategiesStartAtTheirThresholds() {
+        final var checkoutExecutor = checkoutExecutor(2048, 32768);
+
+        try {
+            assertEquals(Strategy.SEQUENTIAL, checkoutExecutor.strategyFor(2047));
+            assertEquals(Strategy.BATCHED, checkoutExecutor.strategyFor(2048));
+            assertEquals(Strategy.BATCHED, checkoutExecutor.strategyFor(32767));
+            assertEquals(Strategy.PARALLEL, checkoutExecutor.strategyFor(32768));
+        } finally {
+            checkoutExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void everyStrategyMapsEveryItem() {
+        final var items = IntStream.range(0, 5000).boxed().collect(Collectors.toList());
+
+        for (final var thresholds : List.of(new int[] {0, 0}, new int[] {1, 0}, new int[] {0, 1})) {
+            final var checkoutExecutor = checkoutExecutor(thresholds[0], thresholds[1]);
+
+            try {
+                final var doubled = checkoutExecutor.map(items, i -> i * 2L);
+
+                assertEquals(items.size(), doubled.size());
+                assertEquals(items.stream().mapToLong(i -> i * 2L).sum(), doubled.stream().mapToLong(d -> d).sum());
+            } finally {
+                checkoutExecutor.shutdown();
+            }
+        }
+    }
+
+    private static CheckoutExecutor checkoutExecutor(final int sequentialThreshold, final int parallelThreshold) {
+        return new CheckoutExecutor(2, sequentialThreshold, parallelThreshold, 1024, new SimpleMeterRegistry());
+    }
+}
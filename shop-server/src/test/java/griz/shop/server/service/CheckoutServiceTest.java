@@ -0,0 +1,117 @@
+package griz.shop.server.service;
+
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.ReceiptItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the fixed-point pricing of {@link CheckoutService#priceItem()} produces the same totals, including the
+ * scale, as the {@link BigDecimal} reference {@link CheckoutService#priceItemDecimal()}.
+ */
+class CheckoutServiceTest {
+
+    private static final long[] TIER_EDGES = {1, 10, 11, 100, 101, 1000, 1001};
+
+    private CheckoutExecutor                checkoutExecutor;
+    private Function<CartItem, ReceiptItem> priceItem;
+    private Function<CartItem, ReceiptItem> priceItemDecimal;
+
+    @BeforeEach
+    void setUp() {
+        final var meterRegistry = new SimpleMeterRegistry();
+
+        checkoutExecutor = new CheckoutExecutor(1, 2048, 32768, 1024, meterRegistry);
+
+        final var checkoutService =
+            new CheckoutService(checkoutExecutor, new DiscountEngine(null, "", meterRegistry), meterRegistry);
+
+        priceItem        = checkoutService.priceItem();
+        priceItemDecimal = checkoutService.priceItemDecimal();
+    }
+
+    @AfterEach
+    void tearDown() {
+        checkoutExecutor.shutdown();
+    }
+
+    @Test
+    void tierEdges() {
+        for (final var quantity : TIER_EDGES) {
+            assertSamePrice("1.25", BigInteger.valueOf(quantity));
+            assertSamePrice("3", BigInteger.valueOf(quantity));
+        }
+    }
+
+    @Test
+    void priceScales() {
+        for (int scale = 0; scale <= 18; scale++) {
+            for (final var quantity : TIER_EDGES) {
+                assertSamePrice(BigDecimal.valueOf(123456789, scale), BigInteger.valueOf(quantity));
+                assertSamePrice(BigDecimal.valueOf(1, scale), BigInteger.valueOf(quantity));
+            }
+        }
+    }
+
+    @Test
+    void negativeScalePrices() {
+        for (final var quantity : TIER_EDGES) {
+            assertSamePrice("1E+3", BigInteger.valueOf(quantity));
+            assertSamePrice("25E+2", BigInteger.valueOf(quantity));
+        }
+    }
+
+    /*
+     * Products of the unscaled price and the quantity, and of that and the retained fraction, that overflow a long.
+     */
+    @Test
+    void multiplyExactOverflow() {
+        final var largePrice = BigDecimal.valueOf(Long.MAX_VALUE / 3, 2);
+
+        assertSamePrice(largePrice, BigInteger.valueOf(10));
+        assertSamePrice(largePrice, BigInteger.valueOf(1001));
+        assertSamePrice(BigDecimal.valueOf(Long.MAX_VALUE, 2), BigInteger.ONE);
+        assertSamePrice(BigDecimal.valueOf(Long.MAX_VALUE / 50, 2), BigInteger.valueOf(11));
+        assertSamePrice(new BigDecimal(BigInteger.ONE.shiftLeft(64), 2), BigInteger.valueOf(11));
+    }
+
+    @Test
+    void quantitiesBeyondLong() {
+        final var quantities = new BigInteger[] {
+            BigInteger.ONE.shiftLeft(63),
+            BigInteger.ONE.shiftLeft(63).add(BigInteger.ONE),
+            BigInteger.ONE.shiftLeft(64),
+            BigInteger.TEN.pow(30)
+        };
+
+        for (final var quantity : quantities) {
+            assertSamePrice("1.25", quantity);
+            assertSamePrice("1E+3", quantity);
+        }
+    }
+
+    private void assertSamePrice(final String price, final BigInteger quantity) {
+        assertSamePrice(new BigDecimal(price), quantity);
+    }
+
+    private void assertSamePrice(final BigDecimal price, final BigInteger quantity) {
+        final var cartItem = CartItem.builder()
+                                .name("apple")
+                                .pricePerItem(price)
+                                .quantity(quantity)
+                                .build();
+
+        final var expected = priceItemDecimal.apply(cartItem).getTotalPrice();
+        final var actual   = priceItem.apply(cartItem).getTotalPrice();
+
+        assertEquals(expected, actual, () -> price + " x " + quantity);
+    }
+}
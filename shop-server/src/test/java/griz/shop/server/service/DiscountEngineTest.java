@@ -0,0 +1,104 @@
+package griz.shop.server.service;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiscountEngineTest {
+
+    private static final BigInteger ELEVEN = BigInteger.valueOf(11);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void missingFileFallsBackToConfiguredTiers() {
+        final var meterRegistry  = new SimpleMeterRegistry();
+        final var discountEngine = new DiscountEngine(null, directory.resolve("missing.properties").toString(),
+                                                      meterRegistry);
+
+        assertEquals(new BigDecimal("0.10"), discountEngine.discountFor("apple", ELEVEN).rate);
+        assertEquals(new DiscountEngine(null, "", meterRegistry).generation(), discountEngine.generation());
+        assertEquals(1, meterRegistry.counter(DiscountEngine.METRIC_RELOAD_FAILURES).count());
+    }
+
+    @Test
+    void fileCreatedAfterStartupIsLoaded() throws IOException {
+        final var file           = directory.resolve("discounts.properties");
+        final var discountEngine = new DiscountEngine(null, file.toString(), new SimpleMeterRegistry());
+        final var generation     = discountEngine.generation();
+
+        Files.writeString(file, "default=11:0.20");
+        discountEngine.reload();
+
+        assertEquals(new BigDecimal("0.20"), discountEngine.discountFor("apple", ELEVEN).rate);
+        assertNotEquals(generation, discountEngine.generation());
+    }
+
+    @Test
+    void generationIdentifiesTiers() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var generation    = new DiscountEngine(Map.of("default", "101:0.15, 11:0.10"), "", meterRegistry)
+                                      .generation();
+
+        assertEquals(generation,
+                     new DiscountEngine(Map.of("default", "11:0.10,101:0.15"), "", meterRegistry).generation());
+        assertNotEquals(generation,
+                        new DiscountEngine(Map.of("default", "11:0.1, 101:0.15"), "", meterRegistry).generation());
+        assertNotEquals(generation,
+                        new DiscountEngine(Map.of("default", "11:0.10, 101:0.15", "apple", "2:0.5"), "", meterRegistry)
+                            .generation());
+        assertNotEquals(0, generation);
+    }
+
+    @Test
+    void checkoutRepricesLinesOfEarlierGenerations() throws IOException {
+        final var file            = directory.resolve("discounts.properties");
+        final var meterRegistry   = new SimpleMeterRegistry();
+        final var discountEngine  = new DiscountEngine(null, file.toString(), meterRegistry);
+        final var checkoutService = new CheckoutService(new CheckoutExecutor(1, 2048, 32768, 1024, meterRegistry),
+                                                        discountEngine,
+                                                        meterRegistry);
+        final var apple           = item("apple", 11);
+        final var banana          = item("banana", 1);
+        final var cart            = new Cart();
+
+        cart.addItem(apple, checkoutService.priceItem().apply(apple));
+        cart.addItem(banana, checkoutService.priceItem().apply(banana));
+
+        assertTrue(cart.isPriced(discountEngine.generation()));
+        assertEquals(new BigDecimal("10.90"), checkoutService.checkout().apply(cart).getTotalPrice());
+
+        Files.writeString(file, "default=11:0.50");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(1)));
+        discountEngine.reload();
+
+        assertFalse(cart.isPriced(discountEngine.generation()));
+        assertEquals(2, cart.getUnpricedItems(discountEngine.generation()).size());
+        assertEquals(new BigDecimal("6.50"), checkoutService.checkout().apply(cart).getTotalPrice());
+    }
+
+    private static CartItem item(final String name, final long quantity) {
+        return CartItem.builder()
+                .name(name)
+                .quantity(BigInteger.valueOf(quantity))
+                .pricePerItem(BigDecimal.ONE)
+                .build();
+    }
+}
@@ -0,0 +1,193 @@
+package griz.shop.server.store;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.ReceiptItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round-trips {@link Cart}s and {@link CartItem}s through the {@link CartCodec}, and checks hand-written encodings
+ * against the format.
+ */
+class CartCodecTest {
+
+    private static final long GENERATION = 42;
+
+    private final CartCodec cartCodec = new CartCodec("banana,apple");
+
+    @Test
+    void pricedAndUnpricedLinesRoundTrip() {
+        final var apple = item("apple", "0.25", 4);
+        final var mango = item("Mango", "1.10", 3);
+        final var cart  = new Cart(List.of(mango));
+
+        cart.addItem(apple, receiptItem(apple, "0.90", GENERATION));
+        cart.setVersion(7);
+
+        final var decoded = cartCodec.decode(cartCodec.encode(cart));
+
+        assertEquals(cart, decoded);
+        assertEquals(7, decoded.getVersion());
+        assertEquals(cart.findReceiptItemByName("apple"), decoded.findReceiptItemByName("apple"));
+        assertTrue(decoded.findReceiptItemByName("Mango").isEmpty());
+        assertEquals(List.of(mango), decoded.getUnpricedItems(GENERATION));
+    }
+
+    @Test
+    void dictionaryNamesAreEncodedAsReferences() {
+        final var apple = item("apple", "0.25", 1);
+        final var mango = item("mango", "0.25", 1);
+
+        final var referenced = cartCodec.encodeItem(apple, null);
+        final var literal    = cartCodec.encodeItem(mango, null);
+
+        assertEquals(literal.length - "mango".length() - 1, referenced.length);
+        assertEquals(apple, cartCodec.decodeItem(referenced));
+        assertEquals(mango, cartCodec.decodeItem(literal));
+    }
+
+    @Test
+    void pricesThatDoNotFitAVarintRoundTripAsDecimalStrings() {
+        final var large  = item("apple", "123456789012345678901234567890.5", 2);
+        final var scaled = item("banana", "1E+3", 1);
+        final var cart   = new Cart(List.of(scaled));
+
+        cart.addItem(large, receiptItem(large, "246913578024691357802469135781.0", GENERATION));
+
+        final var decoded = cartCodec.decode(cartCodec.encode(cart));
+
+        assertEquals(cart, decoded);
+        assertEquals(new BigDecimal("1E+3"), decoded.findItemByName("banana").orElseThrow().getPricePerItem());
+        assertEquals(cart.findReceiptItemByName("apple"), decoded.findReceiptItemByName("apple"));
+    }
+
+    @Test
+    void rejectsReferencesOutsideTheDictionary() {
+        final var bytes = new Encoding(1, 2).varint(1).decimal(0, 1).varint(3).unpriced().toByteArray();
+
+        assertThrows(IllegalArgumentException.class, () -> cartCodec.decodeItem(bytes));
+        assertThrows(IllegalArgumentException.class, () -> cartCodec.decodeItem(bytes, new Cart()));
+    }
+
+    @Test
+    void rejectsUnknownHeaders() {
+        final var unsupported = new Encoding(2, 2).toByteArray();
+        final var extended    = new Encoding(1, 3).toByteArray();
+
+        assertThrows(IllegalArgumentException.class, () -> cartCodec.decode(unsupported));
+        assertThrows(IllegalArgumentException.class, () -> cartCodec.decode(extended));
+        assertThrows(IllegalArgumentException.class, () -> cartCodec.decode(new byte[] {0, 3, 2}));
+    }
+
+    @Test
+    void encodesTheCurrentVersion() {
+        final var apple = item("apple", "0.25", 4);
+
+        final var expected = new Encoding(1, 2)
+                               .varint(4).decimal(2, 25).varint(2).priced().decimal(2, 90).varint(GENERATION)
+                               .toByteArray();
+
+        assertArrayEquals(expected, cartCodec.encodeItem(apple, receiptItem(apple, "0.90", GENERATION)));
+    }
+
+    @Test
+    void encodesLiteralNamesAndDecimalStrings() {
+        final var mango = item("mango", "1E+3", 1);
+
+        final var expected = new Encoding(1, 2)
+                               .varint(1).decimalString("1E+3").varint(0).string("mango").unpriced()
+                               .toByteArray();
+
+        assertArrayEquals(expected, cartCodec.encodeItem(mango, null));
+        assertEquals(mango, cartCodec.decodeItem(expected));
+    }
+
+    private static CartItem item(final String name, final String price, final long quantity) {
+        return CartItem.builder()
+                .name(name)
+                .pricePerItem(new BigDecimal(price))
+                .quantity(BigInteger.valueOf(quantity))
+                .build();
+    }
+
+    private static ReceiptItem receiptItem(final CartItem cartItem, final String total, final long generation) {
+        return ReceiptItem.builder()
+                .name(cartItem.getName())
+                .quantity(cartItem.getQuantity())
+                .totalPrice(new BigDecimal(total))
+                .generation(generation)
+                .build();
+    }
+
+    /*
+     * Writes encodings byte by byte, independently of the codec.
+     */
+    private static final class Encoding {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        Encoding(final int formatVersion, final int dictionarySize) {
+            output.write(CartCodec.MAGIC);
+            output.write(formatVersion);
+            varint(dictionarySize);
+        }
+
+        Encoding varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                output.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+
+            output.write((int) value);
+
+            return this;
+        }
+
+        Encoding decimal(final int scale, final long unscaled) {
+            output.write(scale);
+
+            return varint((unscaled << 1) ^ (unscaled >> 63));
+        }
+
+        Encoding decimalString(final String value) {
+            output.write(0xFF);
+
+            return string(value);
+        }
+
+        Encoding string(final String value) {
+            final var bytes = value.getBytes(UTF_8);
+
+            varint(bytes.length);
+            output.writeBytes(bytes);
+
+            return this;
+        }
+
+        Encoding priced() {
+            output.write(1);
+
+            return this;
+        }
+
+        Encoding unpriced() {
+            output.write(0);
+
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return output.toByteArray();
+        }
+    }
+}
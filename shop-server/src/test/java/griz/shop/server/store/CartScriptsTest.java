@@ -0,0 +1,221 @@
+package griz.shop.server.store;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.ReceiptItem;
+import griz.shop.server.service.CheckoutExecutor;
+import griz.shop.server.service.CheckoutService;
+import griz.shop.server.service.DiscountEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.luaj.vm2.LuaString;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static griz.shop.server.domain.CartItem.ITEM_MAX_QUANTITY;
+import static griz.shop.server.store.RedisHashCartStore.SCRIPT_ADD;
+import static griz.shop.server.store.RedisHashCartStore.SCRIPT_UPDATE_QUANTITY;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the Lua scripts of the {@link RedisHashCartStore} against an in-memory stand-in for the Redis commands they
+ * call, and decodes what they store with the {@link CartCodec}.
+ */
+class CartScriptsTest {
+
+    private static final String   FIELD  = "apple";
+    private static final String   EXPIRY = "1800";
+    private static final String[] KEYS   = {"shop:cart:{1}", "shop:cart:{1}:version"};
+
+    private final Map<String, Map<String, byte[]>> hashes   = new HashMap<>();
+    private final Map<String, Long>                counters = new HashMap<>();
+
+    private CartCodec                       cartCodec;
+    private Function<CartItem, ReceiptItem> pricing;
+
+    @BeforeEach
+    void setUp() {
+        final var meterRegistry = new SimpleMeterRegistry();
+
+        cartCodec = new CartCodec("banana,apple");
+        pricing   = new CheckoutService(new CheckoutExecutor(1, 2048, 32768, 1024, meterRegistry),
+                                        new DiscountEngine(null, "", meterRegistry),
+                                        meterRegistry).priceItem();
+    }
+
+    @Test
+    void updatedItemIsStoredWithItsQuantityAndPricedAtCheckout() throws IOException {
+        assertEquals(1, run(SCRIPT_ADD, FIELD, encode(item(10)), EXPIRY).tolong());
+
+        final var updated = run(SCRIPT_UPDATE_QUANTITY, FIELD, "11", ITEM_MAX_QUANTITY, EXPIRY);
+        final var cart    = new Cart();
+
+        cartCodec.decodeItem(storedItem(), cart);
+
+        assertArrayEquals(storedItem(), bytes(updated));
+        assertEquals(item(11), cart.findItemByName(FIELD).orElseThrow());
+        assertTrue(cart.findReceiptItemByName(FIELD).isEmpty());
+        assertFalse(cart.isPriced());
+        assertEquals(2L, counters.get(KEYS[1]));
+    }
+
+    @Test
+    void quantitiesOutOfBoundsLeaveItemUnchanged() throws IOException {
+        final var item = encode(item(10));
+
+        run(SCRIPT_ADD, FIELD, item, EXPIRY);
+
+        for (final var quantity : List.of("-1", "1.5", "x", Long.toString(ITEM_MAX_QUANTITY + 1), "10")) {
+            assertArrayEquals(item, bytes(run(SCRIPT_UPDATE_QUANTITY, FIELD, quantity, ITEM_MAX_QUANTITY, EXPIRY)));
+        }
+
+        assertArrayEquals(item, storedItem());
+        assertEquals(1L, counters.get(KEYS[1]));
+    }
+
+    @Test
+    void updateOfMissingItemIsNotWritten() throws IOException {
+        assertTrue(run(SCRIPT_UPDATE_QUANTITY, FIELD, "11", ITEM_MAX_QUANTITY, EXPIRY).isboolean());
+        assertFalse(hashes.containsKey(KEYS[0]));
+        assertFalse(counters.containsKey(KEYS[1]));
+    }
+
+    @Test
+    void updateToZeroRemovesItem() throws IOException {
+        final var item = encode(item(10));
+
+        run(SCRIPT_ADD, FIELD, item, EXPIRY);
+
+        assertArrayEquals(item, bytes(run(SCRIPT_UPDATE_QUANTITY, FIELD, "0", ITEM_MAX_QUANTITY, EXPIRY)));
+        assertFalse(hashes.get(KEYS[0]).containsKey(FIELD));
+        assertEquals(2L, counters.get(KEYS[1]));
+    }
+
+    @Test
+    void updateKeepsLiteralNamesAndDecimalStringPrices() throws IOException {
+        final var item = CartItem.builder()
+                .name("Apple 🍎")
+                .pricePerItem(new BigDecimal("123456789012345678901234.5"))
+                .quantity(BigInteger.valueOf(1001))
+                .build();
+
+        run(SCRIPT_ADD, FIELD, encode(item), EXPIRY);
+
+        for (final var quantity : List.of(7L, ITEM_MAX_QUANTITY, 300L)) {
+            run(SCRIPT_UPDATE_QUANTITY, FIELD, Long.toString(quantity), ITEM_MAX_QUANTITY, EXPIRY);
+
+            final var updated = cartCodec.decodeItem(storedItem());
+
+            assertEquals(item.getName(), updated.getName());
+            assertEquals(item.getPricePerItem(), updated.getPricePerItem());
+            assertEquals(BigInteger.valueOf(quantity), updated.getQuantity());
+        }
+    }
+
+    private CartItem item(final long quantity) {
+        return CartItem.builder()
+                .name("Apple")
+                .pricePerItem(new BigDecimal("1.25"))
+                .quantity(BigInteger.valueOf(quantity))
+                .build();
+    }
+
+    private byte[] encode(final CartItem item) {
+        return cartCodec.encodeItem(item, pricing.apply(item));
+    }
+
+    private byte[] storedItem() {
+        return hashes.get(KEYS[0]).get(FIELD);
+    }
+
+    private LuaValue run(final String script, final Object... args) throws IOException {
+        try (var source = getClass().getClassLoader().getResourceAsStream(script)) {
+            final var globals = JsePlatform.standardGlobals();
+            final var argv    = new LuaTable();
+            final var keys    = new LuaTable();
+            final var redis   = new LuaTable();
+
+            for (int i = 0; i < KEYS.length; i++) {
+                keys.set(i + 1, LuaValue.valueOf(KEYS[i]));
+            }
+
+            for (int i = 0; i < args.length; i++) {
+                argv.set(i + 1, args[i] instanceof byte[]
+                                    ? LuaValue.valueOf((byte[]) args[i])
+                                    : LuaValue.valueOf(args[i].toString()));
+            }
+
+            redis.set("call", new RedisCall());
+            globals.set("KEYS", keys);
+            globals.set("ARGV", argv);
+            globals.set("redis", redis);
+
+            return globals.load(source, script, "t", globals).call();
+        }
+    }
+
+    private static byte[] bytes(final LuaValue value) {
+        final var string = value.checkstring();
+        final var bytes  = new byte[string.rawlen()];
+
+        string.copyInto(0, bytes, 0, bytes.length);
+
+        return bytes;
+    }
+
+    /*
+     * The commands used by the scripts, with the replies Redis gives to Lua.
+     */
+    private final class RedisCall extends VarArgFunction {
+
+        @Override
+        public Varargs invoke(final Varargs args) {
+            final var command = args.checkjstring(1);
+            final var key     = args.checkjstring(2);
+
+            switch (command) {
+                case "HGET":
+                    return value(hashes.getOrDefault(key, Map.of()).get(args.checkjstring(3)));
+                case "HSET":
+                    return reply(hash(key).put(args.checkjstring(3), bytes(args.arg(4))) == null);
+                case "HSETNX":
+                    return reply(hash(key).putIfAbsent(args.checkjstring(3), bytes(args.arg(4))) == null);
+                case "HDEL":
+                    return reply(hash(key).remove(args.checkjstring(3)) != null);
+                case "INCR":
+                    return LuaValue.valueOf(counters.merge(key, 1L, Long::sum));
+                case "EXPIRE":
+                    return reply(hashes.containsKey(key) || counters.containsKey(key));
+                default:
+                    throw new UnsupportedOperationException(command);
+            }
+        }
+
+        private Map<String, byte[]> hash(final String key) {
+            return hashes.computeIfAbsent(key, k -> new HashMap<>());
+        }
+
+        private LuaValue value(final byte[] value) {
+            return value == null ? LuaValue.FALSE : LuaString.valueOf(value);
+        }
+
+        private LuaValue reply(final boolean changed) {
+            return LuaValue.valueOf(changed ? 1 : 0);
+        }
+    }
+}
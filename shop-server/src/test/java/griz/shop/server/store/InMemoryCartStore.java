@@ -0,0 +1,207 @@
+package griz.shop.server.store;
+
+import griz.shop.server.domain.Cart;
+import griz.shop.server.domain.CartItem;
+import griz.shop.server.domain.ReceiptItem;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static griz.shop.server.domain.CartItem.ITEM_MAX_QUANTITY;
+
+/**
+ * {@link CartStore} keeping its {@link Cart}s in memory, for testing the APIs without Redis. Every operation holds
+ * the lock of the store.
+ */
+public class InMemoryCartStore implements CartStore {
+
+    private final Map<String, Cart> carts    = new ConcurrentHashMap<>();
+    private final ReactiveCartStore reactive = new Reactive();
+
+    /**
+     * Returns the identifiers of the stored {@link Cart}s.
+     *
+     * @return the identifiers
+     */
+    public synchronized Collection<String> cartIds() {
+        return List.copyOf(carts.keySet());
+    }
+
+    @Override
+    public synchronized Cart findCart(final String cartId) {
+        return carts.getOrDefault(cartId, new Cart()).copy();
+    }
+
+    @Override
+    public synchronized long findVersion(final String cartId) {
+        return findCart(cartId).getVersion();
+    }
+
+    @Override
+    public synchronized Optional<CartItem> findItem(final String cartId, final String name) {
+        return findCart(cartId).findItemByName(name);
+    }
+
+    @Override
+    public synchronized boolean addItem(final String cartId, final CartItem cartItem, final ReceiptItem receiptItem) {
+        final var cart = findCart(cartId);
+
+        if (cart.findItemByName(cartItem.getName()).isPresent()) {
+            return false;
+        }
+
+        cart.addItem(cartItem, receiptItem);
+        save(cartId, cart);
+
+        return true;
+    }
+
+    @Override
+    public synchronized Optional<CartItem> updateItemQuantity(final String cartId, final String name, final long quantity) {
+        final var cart = findCart(cartId);
+
+        return cart.findItemByName(name)
+                .map(item -> {
+                    if (quantity < 0 || quantity > ITEM_MAX_QUANTITY) {
+                        return item;
+                    }
+
+                    if (quantity == 0) {
+                        cart.removeItemByName(name);
+                        save(cartId, cart);
+                        return item;
+                    }
+
+                    final var updatedItem =
+                        CartItem.builder()
+                            .name(item.getName())
+                            .pricePerItem(item.getPricePerItem())
+                            .quantity(BigInteger.valueOf(quantity))
+                            .build();
+
+                    cart.addItem(updatedItem);
+                    save(cartId, cart);
+
+                    return updatedItem;
+                });
+    }
+
+    @Override
+    public synchronized <T> T update(final String cartId,
+                                     final Collection<String> names,
+                                     final Function<Cart, T> update) {
+        final var cart   = findCart(cartId);
+        final var result = update.apply(cart);
+
+        if (!cart.equals(findCart(cartId))) {
+            save(cartId, cart);
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized Optional<CartItem> removeItem(final String cartId, final String name) {
+        final var cart = findCart(cartId);
+
+        return cart.removeItemByName(name)
+                .map(item -> {
+                    save(cartId, cart);
+                    return item;
+                });
+    }
+
+    @Override
+    public synchronized void clear(final String cartId) {
+        final var cart = new Cart();
+
+        cart.setVersion(findVersion(cartId));
+        save(cartId, cart);
+    }
+
+    @Override
+    public ReactiveCartStore reactive() {
+        return reactive;
+    }
+
+    private void save(final String cartId, final Cart cart) {
+        cart.setVersion(cart.getVersion() + 1);
+        carts.put(cartId, cart);
+    }
+
+    private final class Reactive implements ReactiveCartStore {
+
+        @Override
+        public Single<Cart> findCart(final String cartId) {
+            return Single.fromCallable(() -> InMemoryCartStore.this.findCart(cartId));
+        }
+
+        @Override
+        public Single<Long> findVersion(final String cartId) {
+            return Single.fromCallable(() -> InMemoryCartStore.this.findVersion(cartId));
+        }
+
+        @Override
+        public Flowable<Cart> streamCart(final String cartId, final int pageSize) {
+            return findCart(cartId).flattenAsFlowable(cart -> {
+                final var items = new ArrayList<>(cart.getItems());
+                final var pages = new ArrayList<Cart>();
+
+                for (int i = 0; i < items.size(); i += pageSize) {
+                    final var page = new Cart();
+
+                    items.subList(i, Math.min(i + pageSize, items.size()))
+                        .forEach(item -> cart.findReceiptItemByName(item.getName())
+                                             .ifPresentOrElse(receiptItem -> page.addItem(item, receiptItem),
+                                                              () -> page.addItem(item)));
+                    pages.add(page);
+                }
+
+                return pages;
+            });
+        }
+
+        @Override
+        public Maybe<CartItem> findItem(final String cartId, final String name) {
+            return Maybe.fromCallable(() -> InMemoryCartStore.this.findItem(cartId, name).orElse(null));
+        }
+
+        @Override
+        public Single<Boolean> addItem(final String cartId, final CartItem cartItem, final ReceiptItem receiptItem) {
+            return Single.fromCallable(() -> InMemoryCartStore.this.addItem(cartId, cartItem, receiptItem));
+        }
+
+        @Override
+        public Maybe<CartItem> updateItemQuantity(final String cartId, final String name, final long quantity) {
+            return Maybe.fromCallable(() ->
+                InMemoryCartStore.this.updateItemQuantity(cartId, name, quantity).orElse(null));
+        }
+
+        @Override
+        public <T> Single<T> update(final String cartId,
+                                    final Collection<String> names,
+                                    final Function<Cart, T> update) {
+            return Single.fromCallable(() -> InMemoryCartStore.this.update(cartId, names, update));
+        }
+
+        @Override
+        public Maybe<CartItem> removeItem(final String cartId, final String name) {
+            return Maybe.fromCallable(() -> InMemoryCartStore.this.removeItem(cartId, name).orElse(null));
+        }
+
+        @Override
+        public Completable clear(final String cartId) {
+            return Completable.fromAction(() -> InMemoryCartStore.this.clear(cartId));
+        }
+    }
+}
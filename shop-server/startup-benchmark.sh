@@ -0,0 +1,125 @@
+#!/usr/bin/env bash
+#
+# Startup and footprint benchmark of a build of the server.
+#
+# Usage: ./startup-benchmark.sh <jvm|native|docker:<image>> [users] [iterations] [rounds]
+#
+# Starts the server and reports:
+#   - the time from launching the server until the first PUT /cart succeeds
+#   - the resident set size (RSS) of the server when idle, after startup
+#   - the peak RSS and the throughput under the load mode of the shop-client
+#   - the time to peak throughput: from launching the server, less the idle period, until the end of the first load
+#     round reaching 95% of the best throughput of all rounds
+#
+# The load is applied in consecutive rounds, each a run of the load mode of the client, so that the throughput of the
+# server can be followed while it warms up. The reported throughput is that of the last round.
+#
+# The JVM build is the shadow jar (./gradlew shadowJar), the native build the native image (./gradlew nativeImage).
+# Both run with the heap limit of the Docker image, and serve only the HTTP API, as the native image always does. A
+# Docker image, e.g. docker:shop-server, is run on the host network, so that it reaches Redis on localhost. Requires
+# Redis on localhost and nothing else listening on port 8080. Results are appended to
+# build/reports/startup/results-<revision>.txt, so that runs can be compared across builds and commits.
+
+set -euo pipefail
+
+readonly MODE=${1:?"Usage: $0 <jvm|native|docker:<image>> [users] [iterations] [rounds]"}
+readonly USERS=${2:-50}
+readonly ITERATIONS=${3:-20}
+readonly ROUNDS=${4:-10}
+readonly DIR=$(cd "$(dirname "$0")" && pwd)
+readonly URL=http://localhost:8080/cart
+readonly ITEM='{"name":"apple","quantity":1,"pricePerItem":"1.00"}'
+readonly IDLE_SECONDS=5
+readonly TIMEOUT_SECONDS=60
+readonly PEAK_RATIO=0.95
+readonly REPORTS=$DIR/build/reports/startup
+readonly REVISION=$(git -C "$DIR" rev-parse --short HEAD 2>/dev/null || echo unknown)
+readonly NAME=${MODE//[:\/]/-}
+readonly HTTP_ONLY=(-Dgrpc.server.enabled=false -Dshop.rsocket.enabled=false)
+
+case "$MODE" in
+    jvm)      COMMAND=(java -Xmx128m "${HTTP_ONLY[@]}" -jar "$(ls "$DIR"/build/libs/shop-server-*-all.jar)") ;;
+    native)   COMMAND=("$DIR/build/native-image/shop-server" -Xmx128m "${HTTP_ONLY[@]}") ;;
+    docker:*) COMMAND=(docker run --rm --network host --name shop-server-benchmark "${MODE#docker:}") ;;
+    *)        echo "Unknown mode: $MODE" >&2; exit 1 ;;
+esac
+
+mkdir -p "$REPORTS"
+
+millis() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+rss_mib() {
+    if [[ $MODE == docker:* ]]; then
+        docker stats --no-stream --format '{{.MemUsage}}' shop-server-benchmark \
+            | awk '{ size = $1 + 0; if ($1 ~ /GiB/) size *= 1024; else if ($1 ~ /KiB/) size /= 1024; print int(size) }'
+    else
+        echo $(( $(ps -o rss= -p "$PID") / 1024 ))
+    fi
+}
+
+stop() {
+    if [[ $MODE == docker:* ]]; then
+        docker stop shop-server-benchmark > /dev/null 2>&1 || true
+    fi
+
+    kill "$PID" 2>/dev/null || true
+}
+
+# Launch and wait for the first successful PUT /cart, which requires Redis and the session store to be ready.
+started=$(millis)
+"${COMMAND[@]}" > "$REPORTS/server-$NAME.log" 2>&1 &
+readonly PID=$!
+trap stop EXIT
+
+until curl -sf -o /dev/null -X PUT -H 'Content-Type: application/json' -d "$ITEM" "$URL"; do
+    if (( $(millis) - started > TIMEOUT_SECONDS * 1000 )); then
+        echo "No successful PUT /cart within ${TIMEOUT_SECONDS}s, see $REPORTS/server-$NAME.log" >&2
+        exit 1
+    fi
+
+    sleep 0.01
+done
+
+readonly FIRST_PUT_MS=$(( $(millis) - started ))
+
+sleep "$IDLE_SECONDS"
+readonly IDLE_RSS=$(rss_mib)
+
+# Load rounds, sampling the RSS of the server until the client completes each round.
+peak_rss=$IDLE_RSS
+throughputs=()
+round_ends=()
+
+for (( round = 0; round < ROUNDS; round++ )); do
+    (cd "$DIR/../shop-client" && ./gradlew -q run --args="--users=$USERS --iterations=$ITERATIONS --think-time=0") \
+        > "$REPORTS/load-$NAME.txt" &
+    client=$!
+
+    while kill -0 "$client" 2>/dev/null; do
+        rss=$(rss_mib)
+        (( rss > peak_rss )) && peak_rss=$rss
+        sleep 0.5
+    done
+
+    wait "$client"
+
+    throughputs+=("$(awk '$1 == "Total" {print $5}' "$REPORTS/load-$NAME.txt")")
+    round_ends+=("$(( $(millis) - started - IDLE_SECONDS * 1000 ))")
+done
+
+# The idle period is excluded from the time to peak, since the server receives no load while idle.
+readonly PEAK_MS=$(echo "${throughputs[*]} ${round_ends[*]}" | awk -v ratio="$PEAK_RATIO" '{
+    n = NF / 2
+    for (i = 1; i <= n; i++) if ($i > best) best = $i
+    for (i = 1; i <= n; i++) if ($i >= best * ratio) { print $(n + i); exit }
+}')
+
+{
+    printf '%-24s %14s %14s %14s %12s %14s\n' \
+        "Build" "First PUT ms" "Idle RSS MiB" "Peak RSS MiB" "Req/s" "Time to peak ms"
+    printf '%-24s %14d %14d %14d %12s %14d\n' \
+        "$MODE" "$FIRST_PUT_MS" "$IDLE_RSS" "$peak_rss" "${throughputs[-1]}" "$PEAK_MS"
+    echo "Req/s per round: ${throughputs[*]}"
+} | tee -a "$REPORTS/results-$REVISION.txt"
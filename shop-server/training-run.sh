@@ -0,0 +1,70 @@
+#!/usr/bin/env bash
+#
+# Training run that populates the OpenJ9 shared classes cache of the Docker image.
+#
+# Usage: ./training-run.sh <jar> <cache-dir> [iterations]
+#
+# Starts a local Redis and the server with the shared classes cache enabled, and replays every endpoint of the cart
+# API, blocking and reactive, for a number of iterations. The cache then holds the classes loaded by serving carts,
+# and the methods that were AOT compiled while doing so, so that a server started from it neither loads nor
+# interprets them from scratch. Run by the Dockerfile; the server options must match those of the image, and so must
+# the path of the jar, since classes are only found in the cache for the class path they were stored for.
+
+set -euo pipefail
+
+readonly JAR=${1:?"Usage: $0 <jar> <cache-dir> [iterations]"}
+readonly CACHE_DIR=${2:?"Usage: $0 <jar> <cache-dir> [iterations]"}
+readonly ITERATIONS=${3:-500}
+readonly SHARED_CLASSES=-Xshareclasses:name=shop-server,cacheDir=$CACHE_DIR
+readonly BASE_URL=http://localhost:8080
+readonly COOKIES=$(mktemp)
+
+redis-server --daemonize yes --save "" --appendonly no
+
+java "$SHARED_CLASSES" -Xscmx80m \
+    -Dcom.sun.management.jmxremote -Xmx128m -XX:+IdleTuningGcOnIdle -Xtune:virtualized -jar "$JAR" &
+readonly PID=$!
+
+request() {
+    local method=$1 path=$2 body=${3:-}
+
+    curl -s -o /dev/null -b "$COOKIES" -c "$COOKIES" -X "$method" -H 'Content-Type: application/json' \
+        ${body:+-d "$body"} "$BASE_URL$path"
+}
+
+until curl -sf -o /dev/null -X PUT -H 'Content-Type: application/json' \
+        -d '{"name":"apple","quantity":1,"pricePerItem":"1.00"}' "$BASE_URL/cart"; do
+    sleep 0.1
+done
+
+for (( i = 0; i < ITERATIONS; i++ )); do
+    for api in /cart /rx/cart; do
+        : > "$COOKIES"
+
+        request PUT    "$api" '{"name":"apple","quantity":10,"pricePerItem":"1.00"}'
+        request PUT    "$api" '{"name":"orange","quantity":28,"pricePerItem":"0.50"}'
+        request PUT    "$api" '{"name":"coconut","quantity":10000,"pricePerItem":"1.00"}'
+        request PUT    "$api" '{"name":"apple","quantity":1,"pricePerItem":"1.00"}'
+        request GET    "$api/orange"
+        request POST   "$api/orange" '{"quantity":120}'
+        request POST   "$api/coconut" '{"qty":12}'
+        request DELETE "$api/kumquat"
+        request DELETE "$api/apple"
+        request GET    "$api"
+        request GET    "$api/receipt"
+        request GET    "$api/receipt/stream"
+        request GET    "$api/receipt"
+        request DELETE "$api/clear"
+    done
+
+    request PATCH /cart '[{"op":"add","name":"banana","quantity":35,"pricePerItem":"1.25"},
+                          {"op":"update","name":"banana","quantity":120},
+                          {"op":"remove","name":"banana"}]'
+done
+
+kill -TERM "$PID"
+wait "$PID" || true
+redis-cli shutdown nosave || true
+rm -f "$COOKIES"
+
+java "$SHARED_CLASSES,printStats" || true